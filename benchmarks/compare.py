@@ -0,0 +1,73 @@
+"""So sánh hai file kết quả JMH (định dạng JSON) và báo các benchmark bị chậm đi.
+
+Cách dùng:
+    python benchmarks/compare.py <baseline.json> <current.json> [--threshold 10]
+
+Ví dụ so với kết quả đã commit trên nhánh main:
+    git show main:benchmarks/results/chat-query-service.json > /tmp/base.json
+    python benchmarks/compare.py /tmp/base.json benchmarks/results/chat-query-service.json
+
+Một benchmark bị coi là chậm đi khi điểm (thời gian trung bình, càng thấp càng tốt) tăng quá ngưỡng phần trăm
+và khoảng sai số của hai lần đo không chồng lên nhau. Script trả exit code 1 nếu có benchmark chậm đi.
+"""
+import argparse
+import json
+import sys
+
+
+def load(path):
+    with open(path, encoding="utf-8") as f:
+        results = {}
+        for entry in json.load(f):
+            params = ",".join(f"{k}={v}" for k, v in sorted((entry.get("params") or {}).items()))
+            name = entry["benchmark"].rsplit(".", 2)[-2:]
+            key = ".".join(name) + (f" [{params}]" if params else "")
+            metric = entry["primaryMetric"]
+            error = metric.get("scoreError")
+            results[key] = (metric["score"], error if isinstance(error, (int, float)) else 0.0, metric["scoreUnit"], entry["mode"])
+        return results
+
+
+def main():
+    parser = argparse.ArgumentParser(description=__doc__, formatter_class=argparse.RawDescriptionHelpFormatter)
+    parser.add_argument("baseline")
+    parser.add_argument("current")
+    parser.add_argument("--threshold", type=float, default=10.0, help="phần trăm chậm đi tối đa cho phép (mặc định 10)")
+    args = parser.parse_args()
+
+    baseline = load(args.baseline)
+    current = load(args.current)
+    if not baseline:
+        # Baseline không có kết quả nào: không có gì để so sánh
+        print(f"Baseline {args.baseline} chưa có kết quả; chạy benchmarks/run.sh trên máy chuẩn rồi commit file kết quả.")
+        return
+
+    regressions = 0
+    print(f"{'Benchmark':<70} {'Baseline':>14} {'Current':>14} {'Change':>9}")
+    for key in sorted(set(baseline) | set(current)):
+        if key not in baseline or key not in current:
+            status = "mới" if key not in baseline else "đã xóa"
+            print(f"{key:<70} {'-':>14} {'-':>14} {status:>9}")
+            continue
+
+        base_score, base_error, unit, mode = baseline[key]
+        cur_score, cur_error, _, _ = current[key]
+        # Với throughput (thrpt) điểm càng cao càng tốt; các mode còn lại đo thời gian
+        higher_is_better = mode == "thrpt"
+        change = (cur_score - base_score) / base_score * 100 if base_score else 0.0
+        worse = -change if higher_is_better else change
+        overlap = abs(cur_score - base_score) <= base_error + cur_error
+
+        flag = ""
+        if worse > args.threshold and not overlap:
+            flag = "  <-- REGRESSION"
+            regressions += 1
+        print(f"{key:<70} {base_score:>10.3f} {unit:<3} {cur_score:>10.3f} {unit:<3} {change:>+8.1f}%{flag}")
+
+    if regressions:
+        print(f"\n{regressions} benchmark chậm đi quá {args.threshold}%.")
+        sys.exit(1)
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,51 @@
+-- Kế hoạch và thời gian của các truy vấn chính trên messages sau khi chạy seed-messages.sql.
+--
+--   psql -d chat_bench -v room=4242 -f benchmarks/postgres/explain-messages.sql > explain-$(date +%F).txt
+--
+-- Mỗi truy vấn theo room phải chỉ chạm một partition (kiểm tra "Scan on messages_pN" duy nhất) và dùng
+-- pk_messages hoặc idx_messages_room_seq; truy vấn cuối (không có room_id) là đối chứng quét mọi partition.
+\if :{?room}
+\else
+\set room 4242
+\endif
+\timing on
+
+SELECT count(*) AS partitions FROM pg_inherits WHERE inhparent = 'messages'::regclass;
+SELECT pg_size_pretty(pg_total_relation_size('messages')) AS messages_size,
+       (SELECT reltuples::bigint FROM pg_class WHERE oid = 'messages_p0'::regclass) AS rows_in_p0;
+
+-- 50 tin mới nhất của room (trang đầu)
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT message_id, customer_id, content, sent_at, room_seq
+FROM messages WHERE room_id = :room ORDER BY message_id DESC LIMIT 50;
+
+-- Trang trước theo con trỏ message_id
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT message_id, customer_id, content, sent_at, room_seq
+FROM messages
+WHERE room_id = :room
+  AND message_id < (SELECT max(message_id) FROM messages WHERE room_id = :room)
+ORDER BY message_id DESC LIMIT 50;
+
+-- Đồng bộ theo room_seq (client bù khoảng trống)
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT message_id, room_seq FROM messages
+WHERE room_id = :room AND room_seq > 100 AND room_seq <= 300 ORDER BY room_seq;
+
+-- Tra một tin theo khóa chính
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM messages
+WHERE room_id = :room AND message_id = (SELECT min(message_id) FROM messages WHERE room_id = :room);
+
+-- Ghi: cấp room_seq và INSERT như đường ghi của ChatCommandService (rollback để không đổi dữ liệu)
+BEGIN;
+EXPLAIN (ANALYZE, BUFFERS)
+UPDATE rooms SET last_message_seq = last_message_seq + 1 WHERE room_id = :room RETURNING last_message_seq;
+EXPLAIN (ANALYZE, BUFFERS)
+INSERT INTO messages (message_id, room_id, customer_id, content, sent_at, room_seq)
+SELECT max(message_id) + 1, :room, 1, 'explain insert', now(), max(room_seq) + 1 FROM messages WHERE room_id = :room;
+ROLLBACK;
+
+-- Đối chứng: không có khóa partition nên quét mọi partition
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT count(*) FROM messages WHERE customer_id = 4242;
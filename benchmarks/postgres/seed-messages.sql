@@ -0,0 +1,54 @@
+-- Nạp dữ liệu giả vào bảng messages (hash-partition theo room_id) để đo kế hoạch truy vấn ở quy mô lớn.
+-- Chỉ chạy trên database thử nghiệm đã được Flyway của chat-command-service migrate, KHÔNG chạy trên chat_db thật.
+--
+--   psql -d chat_bench -v total=100000000 -v rooms=100000 -f benchmarks/postgres/seed-messages.sql
+--
+-- Tin nhắn thứ i thuộc room (i % rooms) + 1 với room_seq = i / rooms + 1, message_id tăng dần như Snowflake,
+-- nên (room_id, message_id) và (room_id, room_seq) đều duy nhất. Nạp theo lô 1M dòng, commit sau mỗi lô.
+\if :{?total}
+\else
+\set total 100000000
+\endif
+\if :{?rooms}
+\else
+\set rooms 100000
+\endif
+\timing on
+
+INSERT INTO rooms (room_id, room_name, created_by, created_at, last_message_seq)
+SELECT r, 'bench-room-' || r, 1, now() - interval '30 days', 0
+FROM generate_series(1, :rooms) AS r
+ON CONFLICT (room_id) DO NOTHING;
+
+CREATE TEMP TABLE seed_params AS SELECT :total::bigint AS total, :rooms::bigint AS rooms;
+
+DO $$
+DECLARE
+    total      BIGINT := (SELECT total FROM seed_params);
+    room_count BIGINT := (SELECT rooms FROM seed_params);
+    chunk      BIGINT := 1000000;
+    base_id    BIGINT := (extract(epoch FROM now() - interval '30 days') * 1000)::bigint << 22;
+    from_i     BIGINT := 0;
+BEGIN
+    WHILE from_i < total LOOP
+        INSERT INTO messages (message_id, room_id, customer_id, content, sent_at, room_seq)
+        SELECT base_id + i * 64,
+               i % room_count + 1,
+               i % 50000 + 1,
+               'bench message ' || i,
+               now() - interval '30 days' + (i * interval '25 microseconds'),
+               i / room_count + 1
+        FROM generate_series(from_i, least(from_i + chunk, total) - 1) AS i;
+        from_i := from_i + chunk;
+        COMMIT;
+        RAISE NOTICE 'seeded % / % messages', from_i, total;
+    END LOOP;
+END $$;
+
+UPDATE rooms r
+SET last_message_seq = counts.max_seq
+FROM (SELECT room_id, MAX(room_seq) AS max_seq FROM messages GROUP BY room_id) counts
+WHERE r.room_id = counts.room_id;
+
+VACUUM ANALYZE messages;
+VACUUM ANALYZE rooms;
@@ -0,0 +1,22 @@
+#!/usr/bin/env bash
+# Chạy toàn bộ JMH benchmark của các service và ghi kết quả vào benchmarks/results/<service>.json.
+#
+# Cách dùng (từ thư mục gốc repo):
+#   benchmarks/run.sh                      # cả ba service
+#   benchmarks/run.sh chat-query-service   # một service
+#
+# Chạy trên máy chuẩn (reference machine) khi cập nhật baseline, không chạy song song với tải khác.
+set -euo pipefail
+
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+SERVICES=("$@")
+if [ ${#SERVICES[@]} -eq 0 ]; then
+    SERVICES=(chat-query-service websocket-service auth-service)
+fi
+
+for service in "${SERVICES[@]}"; do
+    echo "=== JMH: $service"
+    (cd "$ROOT/$service" && ./mvnw -B -q -Pjmh test-compile exec:exec)
+done
+
+echo "Kết quả: $ROOT/benchmarks/results/"
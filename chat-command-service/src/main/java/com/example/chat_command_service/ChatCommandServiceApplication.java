@@ -2,8 +2,10 @@ package com.example.chat_command_service;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class ChatCommandServiceApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,27 @@
+package com.example.chat_command_service.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Executor cho việc nạp cache bằng lời gọi WebClient blocking.
+ * Ở chế độ virtual thread, việc nạp chạy trên virtual thread riêng, bên ngoài lock nội bộ của Caffeine,
+ * để carrier thread không bị pin khi chờ I/O. Ở chế độ mặc định dùng executor mặc định của Caffeine.
+ */
+@Configuration
+public class CacheLoaderExecutorConfig {
+
+    @Bean(destroyMethod = "")
+    public Executor cacheLoaderExecutor(@Value("${spring.threads.virtual.enabled}") boolean virtualThreadsEnabled) {
+        if (virtualThreadsEnabled) {
+            System.out.println("--- Virtual threads enabled: cache loads run on virtual threads.");
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("cache-loader-", 0).factory());
+        }
+        return ForkJoinPool.commonPool();
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.chat_command_service.config;
+
+import com.example.chat_command_service.service.CustomerNameCache;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Nhận thông báo đổi tên customer qua Redis pub/sub (customer-management-service publish customerId vào
+ * {@link #CUSTOMER_NAME_CHANGED_CHANNEL}) để mọi instance chat-command-service xoá tên cũ khỏi {@link CustomerNameCache}.
+ * Pub/sub không lưu lại message: instance mất kết nối Redis lúc publish vẫn dùng tên cũ tới lần refresh kế tiếp
+ * ({@code chat.customer-name-cache.refresh-after}).
+ */
+@Configuration
+public class CustomerNameInvalidationConfig {
+
+    public static final String CUSTOMER_NAME_CHANGED_CHANNEL = "customer-name-changed";
+
+    @Bean
+    public RedisMessageListenerContainer customerNameInvalidationListener(RedisConnectionFactory connectionFactory, CustomerNameCache customerNameCache) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener((message, pattern) -> {
+            String body = new String(message.getBody(), StandardCharsets.UTF_8);
+            try {
+                customerNameCache.invalidate(Long.parseLong(body));
+            } catch (NumberFormatException e) {
+                System.err.println("Ignoring invalid customer-name-changed message: " + body);
+            }
+        }, new ChannelTopic(CUSTOMER_NAME_CHANGED_CHANNEL));
+        return container;
+    }
+}
@@ -4,6 +4,7 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.authority.AuthorityUtils; // Dùng để tạo role mặc định
@@ -15,6 +16,7 @@ import org.springframework.util.StringUtils;
 import java.io.IOException;
 
 @Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class GatewayAuthFilter extends OncePerRequestFilter {
 
     public static final String CUSTOMER_ID_HEADER = "X-Customer-Id";
@@ -45,4 +47,10 @@ public class GatewayAuthFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    // Endpoint trả về CompletableFuture được dispatch lần hai (ASYNC); cần xác thực lại từ header cho lần dispatch đó
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.example.chat_command_service.config;
+
+import com.example.chat_command_service.id.IdGenerator;
+import com.example.chat_command_service.id.IdGeneratorHolder;
+import com.example.chat_command_service.id.SnowflakeIdGenerator;
+import com.example.chat_command_service.id.SnowflakeNodeLease;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Mặc định dùng {@link SnowflakeIdGenerator}; khai báo một bean {@link IdGenerator} khác để thay thế.
+ * Mỗi instance phải có CHAT_NODE_ID riêng (0-15); {@link SnowflakeNodeLease} kiểm tra điều đó lúc khởi động.
+ */
+@Configuration
+public class IdGeneratorConfig {
+
+    @Bean
+    @ConditionalOnMissingBean(IdGenerator.class)
+    public IdGenerator idGenerator(@Value("${chat.id-generator.node-id}") long nodeId, SnowflakeNodeLease nodeLease) {
+        System.out.println("--- Snowflake IdGenerator initialised with node ID " + nodeId);
+        return new SnowflakeIdGenerator(nodeId);
+    }
+
+    // Lazy: chỉ được tạo khi idGenerator mặc định ở trên cần tới
+    @Bean(destroyMethod = "close")
+    @Lazy
+    public SnowflakeNodeLease snowflakeNodeLease(DataSource dataSource, @Value("${chat.id-generator.node-id}") long nodeId) throws SQLException {
+        return SnowflakeNodeLease.acquire(dataSource, nodeId);
+    }
+
+    @Bean
+    public InitializingBean idGeneratorHolderInitializer(IdGenerator idGenerator) {
+        return () -> IdGeneratorHolder.set(idGenerator);
+    }
+}
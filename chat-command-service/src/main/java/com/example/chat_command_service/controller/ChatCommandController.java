@@ -1,14 +1,27 @@
 package com.example.chat_command_service.controller;
 
+import com.example.chat_command_service.dto.BatchMessageResult;
 import com.example.chat_command_service.dto.SendMessageRequest;
+import com.example.chat_command_service.dto.SendMessagesBatchRequest;
 import com.example.chat_command_service.dto.UpdateReadMarkerRequest;
 import com.example.chat_command_service.service.ChatCommandService;
+import com.example.chat_command_service.service.CustomerNameCache;
+import com.example.chat_command_service.service.GroupCommitMessageWriter;
+import com.example.chat_command_service.service.ReadMarkerWriteBehindBuffer;
 import com.example.chat_command_service.dto.CreateRoomRequest;
 import com.example.chat_command_service.model.Room;
+import com.example.chat_command_service.ratelimit.MessageRateLimiter;
+import com.example.chat_command_service.ratelimit.RateLimitDecision;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import com.example.chat_command_service.dto.GenericResponse;
 
@@ -19,37 +32,115 @@ import org.springframework.web.server.ResponseStatusException;
 public class ChatCommandController {
 
     private final ChatCommandService chatCommandService;
+    private final CustomerNameCache customerNameCache;
+    private final GroupCommitMessageWriter groupCommitMessageWriter;
+    private final ReadMarkerWriteBehindBuffer readMarkerWriteBehindBuffer;
+    private final MessageRateLimiter messageRateLimiter;
 
-    public ChatCommandController(ChatCommandService chatCommandService) {
+    @Value("${chat.message.batch.max-size}")
+    private int maxBatchSize;
+
+    public ChatCommandController(ChatCommandService chatCommandService, CustomerNameCache customerNameCache, GroupCommitMessageWriter groupCommitMessageWriter, ReadMarkerWriteBehindBuffer readMarkerWriteBehindBuffer, MessageRateLimiter messageRateLimiter) {
         this.chatCommandService = chatCommandService;
+        this.customerNameCache = customerNameCache;
+        this.groupCommitMessageWriter = groupCommitMessageWriter;
+        this.readMarkerWriteBehindBuffer = readMarkerWriteBehindBuffer;
+        this.messageRateLimiter = messageRateLimiter;
     }
 
+    /**
+     * Khi group commit được bật, request được xử lý async: thread servlet được trả lại ngay và response được ghi
+     * khi batch chứa tin nhắn commit. Contract (body, status code) giữ nguyên ở cả hai chế độ.
+     */
     @PostMapping("/message")
-    public ResponseEntity<GenericResponse<Void>> sendMessage(@RequestBody SendMessageRequest request, Authentication authentication) {
+    public CompletableFuture<ResponseEntity<GenericResponse<Void>>> sendMessage(@RequestBody SendMessageRequest request, Authentication authentication) {
         Long customerId = Long.parseLong(authentication.getPrincipal().toString());
         Long roomId = request.getRoomId();
         String content = request.getContent();
         if (roomId == null || content == null || content.isEmpty()) {
-            return ResponseEntity.badRequest().body(GenericResponse.failure("roomId and content cannot be empty."));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(GenericResponse.failure("roomId and content cannot be empty.")));
         }
 
+        // Kiểm tra membership trước để request bị từ chối 403 không tốn token rate limit
         try {
             chatCommandService.enforceRoomMembership(roomId, customerId);
         } catch (ResponseStatusException e) {
-            return ResponseEntity.status(e.getStatusCode()).body(GenericResponse.failure("Forbidden: " + e.getReason()));
+            return CompletableFuture.completedFuture(ResponseEntity.status(e.getStatusCode()).body(GenericResponse.failure("Forbidden: " + e.getReason())));
+        }
+
+        RateLimitDecision rateLimit = messageRateLimiter.tryAcquire(customerId, roomId);
+        if (!rateLimit.allowed()) {
+            return CompletableFuture.completedFuture(tooManyRequests(rateLimit));
         }
         
         Long senderId = Long.parseLong(authentication.getPrincipal().toString());
         
+        if (groupCommitMessageWriter.isEnabled()) {
+            return groupCommitMessageWriter.submit(roomId, senderId, content)
+                .thenApply(message -> messageAccepted())
+                .exceptionally(ChatCommandController::messageRejected);
+        }
+
         chatCommandService.processNewMessage(
             roomId,
             senderId, 
             content
         );
 
+        return CompletableFuture.completedFuture(messageAccepted());
+    }
+
+    private static ResponseEntity<GenericResponse<Void>> messageAccepted() {
         return ResponseEntity.ok(GenericResponse.success("Message command (Write) processed and event published successfully."));
     }
 
+    private static ResponseEntity<GenericResponse<Void>> messageRejected(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof ResponseStatusException statusException) {
+            return ResponseEntity.status(statusException.getStatusCode()).body(GenericResponse.failure(statusException.getReason()));
+        }
+        throw error instanceof CompletionException completionException ? completionException : new CompletionException(cause);
+    }
+
+    /**
+     * 429 kèm Retry-After (giây, làm tròn lên); body ghi thời gian chờ chính xác theo ms.
+     */
+    private static <T> ResponseEntity<GenericResponse<T>> tooManyRequests(RateLimitDecision decision) {
+        long retryAfterSeconds = Math.max(1, (decision.retryAfterMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+            .body(GenericResponse.failure("Rate limit exceeded. Retry after " + decision.retryAfterMillis() + " ms."));
+    }
+
+    @PostMapping("/messages/batch")
+    public ResponseEntity<GenericResponse<List<BatchMessageResult>>> sendMessagesBatch(@RequestBody SendMessagesBatchRequest request, Authentication authentication) {
+        List<SendMessageRequest> messages = request.getMessages();
+        if (messages == null || messages.isEmpty()) {
+            return ResponseEntity.badRequest().body(GenericResponse.failure("messages cannot be empty."));
+        }
+        if (messages.size() > maxBatchSize) {
+            return ResponseEntity.badRequest().body(GenericResponse.failure("A batch may contain at most " + maxBatchSize + " messages."));
+        }
+
+        Long senderId = Long.parseLong(authentication.getPrincipal().toString());
+        // Mỗi tin nhắn tốn một token của bucket theo customer và của bucket theo (room, customer); item sẽ bị từ chối
+        // vì thiếu nội dung hoặc không phải thành viên room được truyền roomId null nên không tốn token
+        List<Long> roomIds = new ArrayList<>(messages.size());
+        for (SendMessageRequest message : messages) {
+            boolean chargeable = message != null && message.getRoomId() != null && message.getContent() != null && !message.getContent().isEmpty()
+                && chatCommandService.checkRoomMembership(message.getRoomId(), senderId);
+            roomIds.add(chargeable ? message.getRoomId() : null);
+        }
+        List<RateLimitDecision> rateLimits = messageRateLimiter.tryAcquireBatch(senderId, roomIds);
+        if (rateLimits.stream().noneMatch(RateLimitDecision::allowed)) {
+            return tooManyRequests(rateLimits.get(0));
+        }
+
+        List<BatchMessageResult> results = chatCommandService.processMessageBatch(senderId, messages, rateLimits);
+
+        return ResponseEntity.ok(GenericResponse.success("Message batch command (Write) processed.", results));
+    }
+
     @PostMapping("/room")
     public ResponseEntity<GenericResponse<Long>> createRoom(@RequestBody CreateRoomRequest request, Authentication authentication) {
         List<Long> targetCustomerIds = request.getTargetCustomerIds();
@@ -68,13 +159,17 @@ public class ChatCommandController {
         
         targetCustomerIds.add(customerId);
 
-        Room newRoom = chatCommandService.processNewRoom(
-            request.getRoomName(),
-            customerId,
-            targetCustomerIds
-        );
+        try {
+            Room newRoom = chatCommandService.processNewRoom(
+                request.getRoomName(),
+                customerId,
+                targetCustomerIds
+            );
 
-        return ResponseEntity.ok(GenericResponse.success("Room command (Write) processed and event published successfully.", newRoom.getRoomId()));
+            return ResponseEntity.ok(GenericResponse.success("Room command (Write) processed and event published successfully.", newRoom.getRoomId()));
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(GenericResponse.failure(e.getReason()));
+        }
     }
 
     @PostMapping("/read") 
@@ -87,6 +182,12 @@ public class ChatCommandController {
             chatCommandService.enforceRoomMembership(request.getRoomId(), Long.parseLong(authentication.getPrincipal().toString()));
             Long customerId = Long.parseLong(authentication.getPrincipal().toString());
             
+            if (readMarkerWriteBehindBuffer.isEnabled()) {
+                // Marker mới chỉ nằm trong buffer, được ghi và phát sự kiện ở lần flush kế tiếp
+                readMarkerWriteBehindBuffer.record(request.getRoomId(), customerId, request.getMessageId());
+                return ResponseEntity.accepted().body(GenericResponse.success("Read Marker command (Write) accepted; it will be persisted and published shortly."));
+            }
+
             chatCommandService.processReadMarkerUpdate(
                 request.getRoomId(), 
                 customerId, 
@@ -102,4 +203,10 @@ public class ChatCommandController {
             return ResponseEntity.status(500).body(GenericResponse.failure("An internal error occurred: " + e.getMessage()));
         }
     }
+
+    @PostMapping("/internal/customerName/evict/customerId/{customerId}")
+    public ResponseEntity<GenericResponse<Void>> evictCustomerName(@PathVariable Long customerId) {
+        customerNameCache.invalidate(customerId);
+        return ResponseEntity.ok(GenericResponse.success("Cached customer full name evicted."));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,94 @@
+package com.example.chat_command_service.controller;
+
+import com.example.chat_command_service.dto.GenericResponse;
+import com.example.chat_command_service.dto.SendMessageRequest;
+import com.example.chat_command_service.ratelimit.MessageRateLimiter;
+import com.example.chat_command_service.ratelimit.RateLimitDecision;
+import com.example.chat_command_service.repository.ReactiveRoomParticipantRepository;
+import com.example.chat_command_service.service.CustomerNameCache;
+import com.example.chat_command_service.service.ReactiveChatCommandService;
+import com.example.chat_command_service.service.RoomMembershipCache;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.security.Principal;
+
+/**
+ * POST /message ở stack reactive, cùng contract với {@link ChatCommandController#sendMessage}:
+ * rate limit, membership (cache, nạp bằng R2DBC khi miss), tên sender (cache async) rồi ghi bằng R2DBC.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveMessageHandler {
+
+    private final ReactiveChatCommandService chatCommandService;
+    private final RoomMembershipCache roomMembershipCache;
+    private final ReactiveRoomParticipantRepository roomParticipantRepository;
+    private final CustomerNameCache customerNameCache;
+    private final MessageRateLimiter messageRateLimiter;
+
+    public ReactiveMessageHandler(ReactiveChatCommandService chatCommandService, RoomMembershipCache roomMembershipCache, ReactiveRoomParticipantRepository roomParticipantRepository, CustomerNameCache customerNameCache, MessageRateLimiter messageRateLimiter) {
+        this.chatCommandService = chatCommandService;
+        this.roomMembershipCache = roomMembershipCache;
+        this.roomParticipantRepository = roomParticipantRepository;
+        this.customerNameCache = customerNameCache;
+        this.messageRateLimiter = messageRateLimiter;
+    }
+
+    public Mono<ServerResponse> sendMessage(ServerRequest request) {
+        return Mono.zip(
+                request.principal().map(Principal::getName).map(Long::parseLong),
+                request.bodyToMono(SendMessageRequest.class).defaultIfEmpty(new SendMessageRequest())
+            )
+            .flatMap(tuple -> sendMessage(tuple.getT1(), tuple.getT2()));
+    }
+
+    private Mono<ServerResponse> sendMessage(Long customerId, SendMessageRequest body) {
+        Long roomId = body.getRoomId();
+        String content = body.getContent();
+        if (roomId == null || content == null || content.isEmpty()) {
+            return respond(HttpStatus.BAD_REQUEST, GenericResponse.failure("roomId and content cannot be empty."));
+        }
+
+        // Kiểm tra membership trước để request bị từ chối 403 không tốn token rate limit
+        return roomMembershipCache.isMember(roomId, customerId, roomParticipantRepository::findCustomerIdsByRoomId).flatMap(isMember -> {
+            if (!isMember) {
+                return respond(HttpStatus.FORBIDDEN, GenericResponse.failure("Forbidden: Access Denied: Customer " + customerId + " is not a participant of Room " + roomId));
+            }
+            return acquireRateLimit(customerId, roomId).flatMap(rateLimit -> {
+                if (!rateLimit.allowed()) {
+                    long retryAfterSeconds = Math.max(1, (rateLimit.retryAfterMillis() + 999) / 1000);
+                    return ServerResponse.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(GenericResponse.failure("Rate limit exceeded. Retry after " + rateLimit.retryAfterMillis() + " ms."));
+                }
+                return Mono.fromFuture(() -> customerNameCache.getFullNameAsync(customerId))
+                    .flatMap(senderFullName -> chatCommandService.processNewMessage(roomId, customerId, content, senderFullName))
+                    .then(respond(HttpStatus.OK, GenericResponse.success("Message command (Write) processed and event published successfully.")));
+            });
+        })
+        .onErrorResume(ResponseStatusException.class, e -> respond(HttpStatus.valueOf(e.getStatusCode().value()), GenericResponse.failure(e.getReason())));
+    }
+
+    // Tầng Redis của rate limiter là blocking, nên chỉ khi bật tầng đó mới chuyển sang boundedElastic
+    private Mono<RateLimitDecision> acquireRateLimit(Long customerId, Long roomId) {
+        if (!messageRateLimiter.usesSharedTier()) {
+            return Mono.just(messageRateLimiter.tryAcquire(customerId, roomId));
+        }
+        return Mono.fromCallable(() -> messageRateLimiter.tryAcquire(customerId, roomId))
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static Mono<ServerResponse> respond(HttpStatus status, GenericResponse<Void> body) {
+        return ServerResponse.status(status).contentType(MediaType.APPLICATION_JSON).bodyValue(body);
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.chat_command_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchMessageResult {
+    private int index;
+    private Long roomId;
+    private Long messageId;
+    private boolean success;
+    private String error;
+
+    public static BatchMessageResult accepted(int index, Long roomId, Long messageId) {
+        return new BatchMessageResult(index, roomId, messageId, true, null);
+    }
+
+    public static BatchMessageResult rejected(int index, Long roomId, String error) {
+        return new BatchMessageResult(index, roomId, null, false, error);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.chat_command_service.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class SendMessagesBatchRequest {
+    private List<SendMessageRequest> messages;
+}
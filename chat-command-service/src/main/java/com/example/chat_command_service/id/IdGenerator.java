@@ -0,0 +1,8 @@
+package com.example.chat_command_service.id;
+
+/**
+ * Sinh id 64-bit, tăng dần theo thời gian, dùng cho các entity của write model.
+ */
+public interface IdGenerator {
+    long nextId();
+}
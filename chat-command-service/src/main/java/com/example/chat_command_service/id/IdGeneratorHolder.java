@@ -0,0 +1,24 @@
+package com.example.chat_command_service.id;
+
+/**
+ * Cầu nối giữa bean {@link IdGenerator} của Spring và {@link SnowflakeIdentifierGenerator} do Hibernate khởi tạo.
+ */
+public final class IdGeneratorHolder {
+
+    private static volatile IdGenerator generator;
+
+    private IdGeneratorHolder() {
+    }
+
+    public static void set(IdGenerator idGenerator) {
+        generator = idGenerator;
+    }
+
+    public static IdGenerator get() {
+        IdGenerator current = generator;
+        if (current == null) {
+            throw new IllegalStateException("IdGenerator has not been initialised yet.");
+        }
+        return current;
+    }
+}
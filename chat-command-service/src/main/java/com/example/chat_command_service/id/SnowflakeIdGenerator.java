@@ -0,0 +1,95 @@
+package com.example.chat_command_service.id;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Snowflake-style id: [timestamp ms kể từ EPOCH | nodeId | sequence].
+ * Bố cục 41 + 4 + 8 bit giữ id trong phạm vi 53 bit để client JavaScript đọc chính xác (Number.MAX_SAFE_INTEGER),
+ * đủ cho 16 node và 256 id/ms mỗi node. Id sắp xếp theo thời gian sinh nên thứ tự messageId vẫn là thứ tự gửi.
+ * Dùng ReentrantLock thay cho synchronized để virtual thread không pin carrier khi chờ lock.
+ * Khi đồng hồ lùi tối đa {@code MAX_CLOCK_BACKWARD_MILLIS}, luồng sinh id ngủ (park) tới khi đồng hồ vượt mốc cũ
+ * thay vì quay vòng; lùi xa hơn thì từ chối ngay. nodeId phải duy nhất giữa các instance (xem SnowflakeNodeLease).
+ */
+public class SnowflakeIdGenerator implements IdGenerator {
+
+    public static final long EPOCH_MILLIS = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+
+    private static final int NODE_BITS = 4;
+    private static final int SEQUENCE_BITS = 8;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final long MAX_CLOCK_BACKWARD_MILLIS = 100;
+
+    private final long nodeId;
+    private final ReentrantLock lock = new ReentrantLock();
+    private long lastTimestamp = -1L;
+    private long sequence = 0L;
+
+    public SnowflakeIdGenerator(long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("nodeId must be between 0 and " + MAX_NODE_ID + " but was " + nodeId);
+        }
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public long nextId() {
+        lock.lock();
+        try {
+            return generate();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long generate() {
+        long timestamp = currentMillis();
+
+        if (timestamp < lastTimestamp) {
+            if (lastTimestamp - timestamp > MAX_CLOCK_BACKWARD_MILLIS) {
+                throw new IllegalStateException("Clock moved backwards by " + (lastTimestamp - timestamp) + " ms, refusing to generate ids.");
+            }
+            timestamp = waitUntilAfter(lastTimestamp - 1);
+        }
+
+        if (timestamp == lastTimestamp) {
+            sequence = (sequence + 1) & SEQUENCE_MASK;
+            if (sequence == 0) {
+                timestamp = waitUntilAfter(lastTimestamp);
+            }
+        } else {
+            sequence = 0L;
+        }
+
+        lastTimestamp = timestamp;
+        return ((timestamp - EPOCH_MILLIS) << (NODE_BITS + SEQUENCE_BITS))
+            | (nodeId << SEQUENCE_BITS)
+            | sequence;
+    }
+
+    public static long extractTimestampMillis(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+
+    private long waitUntilAfter(long timestamp) {
+        long now = currentMillis();
+        while (now <= timestamp) {
+            if (now < timestamp) {
+                // Đồng hồ lùi: ngủ phần còn thiếu thay vì quay vòng CPU khi đang giữ lock
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(timestamp - now));
+            } else {
+                // Hết sequence trong mili giây hiện tại: chờ dưới 1 ms
+                Thread.onSpinWait();
+            }
+            now = currentMillis();
+        }
+        return now;
+    }
+
+    private long currentMillis() {
+        return System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.chat_command_service.id;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+
+import java.lang.reflect.Member;
+
+public class SnowflakeIdentifierGenerator implements IdentifierGenerator {
+
+    public SnowflakeIdentifierGenerator(SnowflakeId config, Member idMember, CustomIdGeneratorCreationContext creationContext) {
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        return IdGeneratorHolder.get().nextId();
+    }
+}
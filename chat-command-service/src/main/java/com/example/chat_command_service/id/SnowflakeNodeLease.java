@@ -0,0 +1,58 @@
+package com.example.chat_command_service.id;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Giữ node ID của Snowflake bằng advisory lock theo session của PostgreSQL trên một connection riêng, suốt vòng đời
+ * ứng dụng. Instance thứ hai khởi động với cùng CHAT_NODE_ID sẽ không lấy được lock và dừng ngay, thay vì sinh id trùng.
+ */
+public final class SnowflakeNodeLease implements AutoCloseable {
+
+    // Khóa hai phần (class, nodeId) để không đụng các advisory lock một phần khác (ví dụ lock của outbox relay)
+    private static final int LOCK_CLASS = 7_431_002;
+
+    private final Connection connection;
+    private final long nodeId;
+
+    private SnowflakeNodeLease(Connection connection, long nodeId) {
+        this.connection = connection;
+        this.nodeId = nodeId;
+    }
+
+    public static SnowflakeNodeLease acquire(DataSource dataSource, long nodeId) throws SQLException {
+        Connection connection = dataSource.getConnection();
+        try {
+            if (!lock(connection, "SELECT pg_try_advisory_lock(?, ?)", nodeId)) {
+                throw new IllegalStateException("Snowflake node ID " + nodeId
+                    + " is already held by another chat-command-service instance; give each instance a unique CHAT_NODE_ID.");
+            }
+            return new SnowflakeNodeLease(connection, nodeId);
+        } catch (SQLException | RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            lock(connection, "SELECT pg_advisory_unlock(?, ?)", nodeId);
+        } finally {
+            connection.close();
+        }
+    }
+
+    private static boolean lock(Connection connection, String sql, long nodeId) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, LOCK_CLASS);
+            statement.setInt(2, (int) nodeId);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        }
+    }
+}
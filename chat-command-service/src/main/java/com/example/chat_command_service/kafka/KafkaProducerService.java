@@ -3,15 +3,29 @@ package com.example.chat_command_service.kafka;
 import com.example.chat_command_service.kafka.dto.MessageSentEvent;
 import com.example.chat_command_service.kafka.dto.ReadMarkerEvent;
 import com.example.chat_command_service.kafka.dto.RoomCreatedEvent;
+import com.example.chat_command_service.model.OutboxEvent;
+import com.example.chat_command_service.repository.OutboxEventRepository;
+import com.example.chat_command_service.tracing.MessageLatencyTracer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Instant;
+
+/**
+ * Ghi sự kiện vào bảng outbox trong cùng transaction với dữ liệu nghiệp vụ.
+ * Việc gửi thực sự lên Kafka do {@link OutboxRelay} đảm nhiệm.
+ */
 @Service
 public class KafkaProducerService {
 
     @Value("${spring.kafka.topics.message-sent}")
-    private String messageSentTopic; 
+    private String messageSentTopic;
 
     @Value("${spring.kafka.topics.room-created}")
     private String roomCreatedTopic;
@@ -19,24 +33,67 @@ public class KafkaProducerService {
     @Value("${spring.kafka.topics.read-marker-updated}")
     private String readMarkerTopic;
 
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+    private final MessageLatencyTracer latencyTracer;
 
-    public KafkaProducerService(KafkaTemplate<String, Object> kafkaTemplate) {
-        this.kafkaTemplate = kafkaTemplate;
+    public KafkaProducerService(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper, MessageLatencyTracer latencyTracer) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+        this.latencyTracer = latencyTracer;
     }
 
+    @Transactional(propagation = Propagation.MANDATORY)
     public void sendMessageSentEvent(MessageSentEvent event) {
-        kafkaTemplate.send(messageSentTopic, event.getRoomId().toString(), event);
-        System.out.println("--- Đã gửi sự kiện MessageSentEvent cho Room ID: " + event.getRoomId());
+        enqueue(messageSentTopic, event.getRoomId().toString(), event);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                latencyTracer.stage("db_commit", event, Instant.now());
+            }
+        });
+        System.out.println("--- Đã ghi sự kiện MessageSentEvent vào outbox cho Room ID: " + event.getRoomId());
     }
-    
+
+    @Transactional(propagation = Propagation.MANDATORY)
     public void sendRoomCreatedEvent(RoomCreatedEvent event) {
-        kafkaTemplate.send(roomCreatedTopic, event.getRoomId().toString(), event);
-        System.out.println("--- Đã gửi sự kiện RoomCreatedEvent cho Room ID: " + event.getRoomId());
+        enqueue(roomCreatedTopic, event.getRoomId().toString(), event);
+        System.out.println("--- Đã ghi sự kiện RoomCreatedEvent (chunk " + (event.getChunkIndex() + 1) + "/" + event.getChunkCount() + ") vào outbox cho Room ID: " + event.getRoomId());
     }
 
+    @Transactional(propagation = Propagation.MANDATORY)
     public void sendReadMarkerEvent(ReadMarkerEvent event) {
-        kafkaTemplate.send(readMarkerTopic, event.getCustomerId().toString(), event); 
-        System.out.println("--- Đã gửi sự kiện ReadMarkerEvent cho Customer ID " + event.getCustomerId() + " trong Room ID: " + event.getRoomId());
+        enqueue(readMarkerTopic, event.getCustomerId().toString(), event);
+        System.out.println("--- Đã ghi sự kiện ReadMarkerEvent vào outbox cho Customer ID " + event.getCustomerId() + " trong Room ID: " + event.getRoomId());
+    }
+
+    /**
+     * Dòng outbox (chưa lưu, chưa có id) cho MessageSentEvent; đường ghi reactive tự insert dòng này bằng R2DBC
+     * trong cùng transaction với tin nhắn.
+     */
+    public OutboxEvent messageSentOutboxEvent(MessageSentEvent event) {
+        return newOutboxEvent(messageSentTopic, event.getRoomId().toString(), event);
+    }
+
+    private void enqueue(String topic, String key, Object event) {
+        outboxEventRepository.save(newOutboxEvent(topic, key, event));
+    }
+
+    private OutboxEvent newOutboxEvent(String topic, String key, Object event) {
+        OutboxEvent outboxEvent = new OutboxEvent();
+        outboxEvent.setTopic(topic);
+        outboxEvent.setEventKey(key);
+        outboxEvent.setEventType(event.getClass().getName());
+        outboxEvent.setPayload(toJson(event));
+        outboxEvent.setCreatedAt(Instant.now());
+        return outboxEvent;
+    }
+
+    private String toJson(Object event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + event.getClass().getSimpleName() + " for outbox", e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,195 @@
+package com.example.chat_command_service.kafka;
+
+import com.example.chat_command_service.kafka.dto.MessageSentEvent;
+import com.example.chat_command_service.model.OutboxEvent;
+import com.example.chat_command_service.repository.OutboxEventRepository;
+import com.example.chat_command_service.tracing.MessageLatencyTracer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.apache.kafka.common.errors.SerializationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đọc outbox theo lô và đẩy sự kiện lên Kafka.
+ * Chỉ một instance được relay tại một thời điểm (advisory lock theo session, giữ trên một connection riêng không mở
+ * transaction), và các sự kiện được gửi theo relay_seq do database cấp nên thứ tự theo từng room (cùng key, cùng partition)
+ * được giữ nguyên kể cả khi nhiều node ghi outbox.
+ * Đọc lô và xóa các sự kiện đã gửi là các transaction ngắn; việc chờ ack Kafka nằm ngoài transaction và bị giới hạn
+ * bởi {@code send-timeout-ms} cho cả lô.
+ * Sự kiện không decode được hoặc bị Kafka từ chối vĩnh viễn được chuyển sang outbox_dead_letters thay vì chặn cả outbox.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final long RELAY_LOCK_ID = 7_431_001L;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final DataSource dataSource;
+    private final MessageLatencyTracer latencyTracer;
+
+    @Value("${outbox.relay.batch-size}")
+    private int batchSize;
+
+    @Value("${outbox.relay.send-timeout-ms}")
+    private long sendTimeoutMs;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository, KafkaTemplate<String, Object> kafkaTemplate, ObjectMapper objectMapper, DataSource dataSource, MessageLatencyTracer latencyTracer) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.dataSource = dataSource;
+        this.latencyTracer = latencyTracer;
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.flush-interval-ms}")
+    public void flush() {
+        try (Connection lockConnection = dataSource.getConnection()) {
+            if (!advisoryLock(lockConnection, "SELECT pg_try_advisory_lock(?)")) {
+                return;
+            }
+            try {
+                int relayed;
+                do {
+                    relayed = relayBatch();
+                } while (relayed >= batchSize);
+            } finally {
+                advisoryLock(lockConnection, "SELECT pg_advisory_unlock(?)");
+            }
+        } catch (SQLException e) {
+            System.err.println("Outbox relay could not take the relay lock: " + e.getMessage());
+        }
+    }
+
+    private static boolean advisoryLock(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, RELAY_LOCK_ID);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        }
+    }
+
+    /**
+     * Trả về số sự kiện đã xử lý xong (gửi được hoặc chuyển sang dead letter); trả về 0 nếu lô dừng giữa chừng
+     * để lần flush sau thử lại.
+     */
+    private int relayBatch() {
+        List<OutboxEvent> batch = outboxEventRepository.findNextBatch(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<OutboxEvent> dispatched = new ArrayList<>(batch.size());
+        List<CompletableFuture<SendResult<String, Object>>> futures = new ArrayList<>(batch.size());
+        int deadLettered = 0;
+        boolean stopped = false;
+        for (OutboxEvent outboxEvent : batch) {
+            Object event;
+            try {
+                event = objectMapper.readValue(outboxEvent.getPayload(), Class.forName(outboxEvent.getEventType()));
+            } catch (Exception e) {
+                deadLetter(outboxEvent, "Could not decode payload: " + e.getMessage());
+                deadLettered++;
+                continue;
+            }
+
+            if (event instanceof MessageSentEvent messageSent) {
+                // created_at của dòng outbox được ghi trong cùng transaction với tin nhắn
+                messageSent.setPersistedAt(outboxEvent.getCreatedAt());
+                messageSent.setPublishedAt(Instant.now());
+            }
+
+            CompletableFuture<SendResult<String, Object>> future;
+            try {
+                future = kafkaTemplate.send(outboxEvent.getTopic(), outboxEvent.getEventKey(), event);
+            } catch (Exception e) {
+                if (isPermanentFailure(e)) {
+                    deadLetter(outboxEvent, "Could not serialize event: " + e.getMessage());
+                    deadLettered++;
+                    continue;
+                }
+                System.err.println("Outbox relay could not dispatch event ID " + outboxEvent.getId() + ": " + e.getMessage());
+                stopped = true;
+                break;
+            }
+            if (event instanceof MessageSentEvent messageSent) {
+                future.thenRun(() -> traceKafkaAck(messageSent, Instant.now()));
+            }
+            dispatched.add(outboxEvent);
+            futures.add(future);
+        }
+
+        // Chờ ack ngoài transaction, tối đa send-timeout-ms cho cả lô
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        List<Long> deliveredIds = new ArrayList<>(futures.size());
+        for (int i = 0; i < futures.size(); i++) {
+            OutboxEvent outboxEvent = dispatched.get(i);
+            try {
+                futures.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                deliveredIds.add(outboxEvent.getId());
+            } catch (ExecutionException e) {
+                if (isPermanentFailure(e)) {
+                    deadLetter(outboxEvent, "Rejected by Kafka: " + e.getCause().getMessage());
+                    deadLettered++;
+                    continue;
+                }
+                System.err.println("Outbox relay stopped at event ID " + outboxEvent.getId() + ": " + e.getMessage());
+                stopped = true;
+                break;
+            } catch (Exception e) {
+                System.err.println("Outbox relay stopped at event ID " + outboxEvent.getId() + ": " + e.getMessage());
+                stopped = true;
+                break;
+            }
+        }
+
+        if (!deliveredIds.isEmpty()) {
+            outboxEventRepository.deleteAllByIdInBatch(deliveredIds);
+            System.out.println("--- Outbox relay đã gửi " + deliveredIds.size() + " sự kiện lên Kafka.");
+        }
+
+        return stopped ? 0 : deliveredIds.size() + deadLettered;
+    }
+
+    /**
+     * Lỗi mà gửi lại cũng không thành công (serialize thất bại, record vượt kích thước tối đa), tìm trong chuỗi cause.
+     */
+    private static boolean isPermanentFailure(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SerializationException || cause instanceof RecordTooLargeException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void deadLetter(OutboxEvent outboxEvent, String error) {
+        outboxEventRepository.moveToDeadLetter(outboxEvent.getId(), error);
+        System.err.println("Outbox relay moved event ID " + outboxEvent.getId() + " (" + outboxEvent.getEventType() + ") to outbox_dead_letters: " + error);
+    }
+
+    private void traceKafkaAck(MessageSentEvent event, Instant ackedAt) {
+        latencyTracer.stage("kafka_ack", event, ackedAt);
+        latencyTracer.hop("relay_wait", event.getPersistedAt(), event.getPublishedAt());
+        latencyTracer.hop("kafka_ack", event.getPublishedAt(), ackedAt);
+        latencyTracer.logIfSlow("kafka_ack", event, null, ackedAt);
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.chat_command_service.kafka.codec;
+
+import com.example.chat_command_service.kafka.dto.MessageSentEvent;
+import com.example.chat_command_service.kafka.dto.ReadMarkerEvent;
+import com.example.chat_command_service.kafka.dto.RoomCreatedEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Codec nhị phân có version cho các domain event trên Kafka, dùng chung wire format giữa chat-command,
+ * chat-query và websocket (mỗi service giữ bản sao của codec cho các DTO của mình).
+ *
+ * <pre>
+ * [MAGIC 0xCE][VERSION][TYPE][record]
+ * record = varint bitmask các field khác null, theo sau là các field đó theo thứ tự khai báo
+ * </pre>
+ *
+ * Field mới chỉ được thêm vào cuối record cấp ngoài cùng (bit mới) và kèm tăng VERSION;
+ * reader cũ bỏ qua phần đuôi mà nó không biết. Payload không bắt đầu bằng MAGIC được coi là JSON cũ.
+ *
+ * <p>Lịch sử version: 1 - bản đầu; 2 - RoomCreatedEvent thêm chunkIndex/chunkCount;
+ * 3 - MessageSentEvent thêm roomSeq; 4 - MessageSentEvent thêm persistedAt/publishedAt.
+ */
+public final class EventCodec {
+
+    public static final byte MAGIC = (byte) 0xCE;
+    public static final byte VERSION = 4;
+
+    static final byte TYPE_MESSAGE_SENT = 1;
+    static final byte TYPE_ROOM_CREATED = 2;
+    static final byte TYPE_READ_MARKER = 3;
+    static final byte TYPE_READ_STATUS_UPDATE = 4;
+    static final byte TYPE_ROOM_UPDATED = 5;
+
+    private static final int HEADER_LENGTH = 3;
+
+    private EventCodec() {
+    }
+
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length >= HEADER_LENGTH && data[0] == MAGIC;
+    }
+
+    public static byte[] encode(Object event) {
+        BinaryEventWriter out = new BinaryEventWriter(128);
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION);
+        if (event instanceof MessageSentEvent e) {
+            out.writeByte(TYPE_MESSAGE_SENT);
+            writeMessageSent(out, e);
+        } else if (event instanceof RoomCreatedEvent e) {
+            out.writeByte(TYPE_ROOM_CREATED);
+            writeRoomCreated(out, e);
+        } else if (event instanceof ReadMarkerEvent e) {
+            out.writeByte(TYPE_READ_MARKER);
+            writeReadMarker(out, e);
+        } else {
+            throw new IllegalArgumentException("No binary encoding for " + event.getClass().getName());
+        }
+        return out.toByteArray();
+    }
+
+    public static Object decode(byte[] data) {
+        if (!isBinary(data)) {
+            throw new IllegalArgumentException("Payload is not a binary-encoded event");
+        }
+        BinaryEventReader in = new BinaryEventReader(data, HEADER_LENGTH);
+        byte type = data[2];
+        return switch (type) {
+            case TYPE_MESSAGE_SENT -> readMessageSent(in);
+            case TYPE_ROOM_CREATED -> readRoomCreated(in);
+            case TYPE_READ_MARKER -> readReadMarker(in);
+            default -> throw new IllegalArgumentException("Unknown event type tag " + type + " (version " + data[1] + ")");
+        };
+    }
+
+    // --- MessageSentEvent ---
+
+    private static void writeMessageSent(BinaryEventWriter out, MessageSentEvent e) {
+        out.writeVarInt(bit(0, e.getMessageId()) | bit(1, e.getRoomId()) | bit(2, e.getSenderId())
+            | bit(3, e.getSenderFullName()) | bit(4, e.getContent()) | bit(5, e.getSentAt()) | bit(6, e.getRoomSeq())
+            | bit(7, e.getPersistedAt()) | bit(8, e.getPublishedAt()));
+        if (e.getMessageId() != null) out.writeVarLong(e.getMessageId());
+        if (e.getRoomId() != null) out.writeVarLong(e.getRoomId());
+        if (e.getSenderId() != null) out.writeVarLong(e.getSenderId());
+        if (e.getSenderFullName() != null) out.writeString(e.getSenderFullName());
+        if (e.getContent() != null) out.writeString(e.getContent());
+        if (e.getSentAt() != null) out.writeInstant(e.getSentAt());
+        if (e.getRoomSeq() != null) out.writeVarLong(e.getRoomSeq());
+        if (e.getPersistedAt() != null) out.writeInstant(e.getPersistedAt());
+        if (e.getPublishedAt() != null) out.writeInstant(e.getPublishedAt());
+    }
+
+    private static MessageSentEvent readMessageSent(BinaryEventReader in) {
+        int mask = in.readVarInt();
+        MessageSentEvent e = new MessageSentEvent();
+        if (has(mask, 0)) e.setMessageId(in.readVarLong());
+        if (has(mask, 1)) e.setRoomId(in.readVarLong());
+        if (has(mask, 2)) e.setSenderId(in.readVarLong());
+        if (has(mask, 3)) e.setSenderFullName(in.readString());
+        if (has(mask, 4)) e.setContent(in.readString());
+        if (has(mask, 5)) e.setSentAt(in.readInstant());
+        if (has(mask, 6)) e.setRoomSeq(in.readVarLong());
+        if (has(mask, 7)) e.setPersistedAt(in.readInstant());
+        if (has(mask, 8)) e.setPublishedAt(in.readInstant());
+        return e;
+    }
+
+    // --- RoomCreatedEvent ---
+
+    private static void writeRoomCreated(BinaryEventWriter out, RoomCreatedEvent e) {
+        out.writeVarInt(bit(0, e.getRoomId()) | bit(1, e.getRoomName()) | bit(2, e.getCreatedBy())
+            | bit(3, e.getCreatedAt()) | bit(4, e.getParticipants()) | bit(5, e.getChunkIndex()) | bit(6, e.getChunkCount()));
+        if (e.getRoomId() != null) out.writeVarLong(e.getRoomId());
+        if (e.getRoomName() != null) out.writeString(e.getRoomName());
+        if (e.getCreatedBy() != null) out.writeVarLong(e.getCreatedBy());
+        if (e.getCreatedAt() != null) out.writeInstant(e.getCreatedAt());
+        if (e.getParticipants() != null) {
+            out.writeVarInt(e.getParticipants().size());
+            for (RoomCreatedEvent.ParticipantDTO p : e.getParticipants()) {
+                out.writeVarInt(bit(0, p.getId()) | bit(1, p.getFullName()) | bit(2, p.getJoinedAt()));
+                if (p.getId() != null) out.writeVarLong(p.getId());
+                if (p.getFullName() != null) out.writeString(p.getFullName());
+                if (p.getJoinedAt() != null) out.writeInstant(p.getJoinedAt());
+            }
+        }
+        if (e.getChunkIndex() != null) out.writeVarInt(e.getChunkIndex());
+        if (e.getChunkCount() != null) out.writeVarInt(e.getChunkCount());
+    }
+
+    private static RoomCreatedEvent readRoomCreated(BinaryEventReader in) {
+        int mask = in.readVarInt();
+        RoomCreatedEvent e = new RoomCreatedEvent();
+        if (has(mask, 0)) e.setRoomId(in.readVarLong());
+        if (has(mask, 1)) e.setRoomName(in.readString());
+        if (has(mask, 2)) e.setCreatedBy(in.readVarLong());
+        if (has(mask, 3)) e.setCreatedAt(in.readInstant());
+        if (has(mask, 4)) {
+            int count = in.readVarInt();
+            List<RoomCreatedEvent.ParticipantDTO> participants = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int participantMask = in.readVarInt();
+                RoomCreatedEvent.ParticipantDTO p = new RoomCreatedEvent.ParticipantDTO();
+                if (has(participantMask, 0)) p.setId(in.readVarLong());
+                if (has(participantMask, 1)) p.setFullName(in.readString());
+                if (has(participantMask, 2)) p.setJoinedAt(in.readInstant());
+                participants.add(p);
+            }
+            e.setParticipants(participants);
+        }
+        if (has(mask, 5)) e.setChunkIndex(in.readVarInt());
+        if (has(mask, 6)) e.setChunkCount(in.readVarInt());
+        return e;
+    }
+
+    // --- ReadMarkerEvent ---
+
+    private static void writeReadMarker(BinaryEventWriter out, ReadMarkerEvent e) {
+        out.writeVarInt(bit(0, e.getRoomId()) | bit(1, e.getCustomerId()) | bit(2, e.getLastReadMessageId()));
+        if (e.getRoomId() != null) out.writeVarLong(e.getRoomId());
+        if (e.getCustomerId() != null) out.writeVarLong(e.getCustomerId());
+        if (e.getLastReadMessageId() != null) out.writeVarLong(e.getLastReadMessageId());
+    }
+
+    private static ReadMarkerEvent readReadMarker(BinaryEventReader in) {
+        int mask = in.readVarInt();
+        ReadMarkerEvent e = new ReadMarkerEvent();
+        if (has(mask, 0)) e.setRoomId(in.readVarLong());
+        if (has(mask, 1)) e.setCustomerId(in.readVarLong());
+        if (has(mask, 2)) e.setLastReadMessageId(in.readVarLong());
+        return e;
+    }
+
+    private static int bit(int index, Object value) {
+        return value != null ? 1 << index : 0;
+    }
+
+    private static boolean has(int mask, int index) {
+        return (mask & (1 << index)) != 0;
+    }
+}
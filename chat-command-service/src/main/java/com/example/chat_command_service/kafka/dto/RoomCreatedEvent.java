@@ -17,6 +17,10 @@ public class RoomCreatedEvent {
     
     private List<ParticipantDTO> participants; 
 
+    // Room lớn được chia thành nhiều event; chunkIndex bắt đầu từ 0
+    private Integer chunkIndex;
+    private Integer chunkCount;
+
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
@@ -1,11 +1,16 @@
 package com.example.chat_command_service.model;
 
+import com.example.chat_command_service.id.SnowflakeId;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import java.time.Instant;
 
+/**
+ * Bảng messages được hash-partition theo room_id (xem db/migration), khóa chính trong DB là (room_id, message_id).
+ * Truy vấn đọc tin nhắn phải lọc theo roomId để Postgres chỉ quét một partition.
+ */
 @Entity
 @Table(name = "messages")
 @Data
@@ -13,12 +18,16 @@ import java.time.Instant;
 @AllArgsConstructor
 public class Message {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SnowflakeId
     private Long messageId;
 
     @Column(nullable = false)
     private Long roomId;
 
+    // Số thứ tự liên tục (không khoảng trống) của tin nhắn trong room, bắt đầu từ 1
+    @Column(nullable = false)
+    private Long roomSeq;
+
     @Column(nullable = false)
     private Long customerId;
 
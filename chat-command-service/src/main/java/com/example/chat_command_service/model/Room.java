@@ -1,5 +1,6 @@
 package com.example.chat_command_service.model;
 
+import com.example.chat_command_service.id.SnowflakeId;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -14,7 +15,7 @@ import java.time.Instant;
 public class Room {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SnowflakeId
     private Long roomId;
 
     @Column(length = 255)
@@ -25,4 +26,8 @@ public class Room {
 
     @Column(nullable = false)
     private Instant createdAt;
+
+    // roomSeq của tin nhắn mới nhất; chỉ được tăng qua RoomSequenceRepository
+    @Column(nullable = false)
+    private Long lastMessageSeq;
 }
\ No newline at end of file
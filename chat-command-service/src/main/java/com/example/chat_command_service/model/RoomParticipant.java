@@ -1,5 +1,6 @@
 package com.example.chat_command_service.model;
 
+import com.example.chat_command_service.id.SnowflakeId;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -18,7 +19,7 @@ import java.time.Instant;
 @AllArgsConstructor
 public class RoomParticipant {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SnowflakeId
     private Long id;
 
     @Column(nullable = false)
@@ -0,0 +1,122 @@
+package com.example.chat_command_service.ratelimit;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Giới hạn số request đồng thời theo AIMD, dựa trên độ trễ quan sát được.
+ * Request hoàn tất nhanh (dưới {@code latency-threshold-ms}) khi hệ thống đang dùng gần hết limit thì limit tăng
+ * thêm khoảng 1 mỗi "vòng" ({@code +1/limit} mỗi mẫu); request chậm hoặc lỗi 5xx thì limit nhân với
+ * {@code backoff-ratio}, tối đa một lần mỗi cửa sổ threshold để một loạt request chậm cùng lúc không kéo limit về min.
+ */
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+    private final boolean enabled;
+    private final double minLimit;
+    private final double maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+    private double limit;
+    private long lastDecreaseNanos;
+
+    public AdaptiveConcurrencyLimiter(MeterRegistry meterRegistry,
+                                      @Value("${chat.concurrency-limit.enabled}") boolean enabled,
+                                      @Value("${chat.concurrency-limit.initial-limit}") int initialLimit,
+                                      @Value("${chat.concurrency-limit.min-limit}") int minLimit,
+                                      @Value("${chat.concurrency-limit.max-limit}") int maxLimit,
+                                      @Value("${chat.concurrency-limit.latency-threshold-ms}") long latencyThresholdMs,
+                                      @Value("${chat.concurrency-limit.backoff-ratio}") double backoffRatio) {
+        this.enabled = enabled;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMs);
+        this.backoffRatio = backoffRatio;
+        this.limit = initialLimit;
+        this.lastDecreaseNanos = System.nanoTime();
+
+        Gauge.builder("chat.concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+            .description("Current adaptive concurrency limit")
+            .register(meterRegistry);
+        Gauge.builder("chat.concurrency.inflight", inFlight, AtomicInteger::get)
+            .description("Requests currently admitted by the concurrency limiter")
+            .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Trả về permit nếu còn chỗ, hoặc {@code null} nếu request phải bị từ chối.
+     * Permit phải được {@link Permit#release(boolean) release} đúng một lần khi request kết thúc.
+     */
+    public Permit tryAcquire() {
+        int currentLimit = (int) getLimit();
+        while (true) {
+            int current = inFlight.get();
+            if (current >= currentLimit) {
+                return null;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return new Permit(System.nanoTime(), current + 1);
+            }
+        }
+    }
+
+    public double getLimit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onSample(long latencyNanos, int inFlightAtStart, boolean failed) {
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            if (failed || latencyNanos > latencyThresholdNanos) {
+                if (now - lastDecreaseNanos >= latencyThresholdNanos) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                    lastDecreaseNanos = now;
+                }
+            } else if (inFlightAtStart * 2 >= limit) {
+                // Chỉ tăng khi limit thực sự đang được dùng, tránh limit phình to lúc tải thấp
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public final class Permit {
+
+        private final long startNanos;
+        private final int inFlightAtStart;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(long startNanos, int inFlightAtStart) {
+            this.startNanos = startNanos;
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        public void release(boolean failed) {
+            if (released.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+                onSample(System.nanoTime() - startNanos, inFlightAtStart, failed);
+            }
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.chat_command_service.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rate limit cho đường ghi tin nhắn, theo customerId và (tùy chọn) theo cặp (roomId, customerId).
+ * Tầng 1 là token bucket trong bộ nhớ của instance; nếu bật, tầng 2 kiểm tra bucket dùng chung trong Redis.
+ * Redis lỗi thì bỏ qua tầng 2 (fail-open) để sự cố Redis không chặn việc gửi tin.
+ * Token đã lấy ở tầng/bucket trước được trả lại khi tầng/bucket sau từ chối, nên request bị từ chối không tốn hạn mức.
+ */
+@Service
+public class MessageRateLimiter {
+
+    private final RedisTokenBucketLimiter redisLimiter;
+    private final Cache<String, TokenBucket> localBuckets;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${chat.rate-limit.enabled}")
+    private boolean enabled;
+
+    @Value("${chat.rate-limit.customer.capacity}")
+    private double customerCapacity;
+
+    @Value("${chat.rate-limit.customer.refill-per-second}")
+    private double customerRefillPerSecond;
+
+    @Value("${chat.rate-limit.room.enabled}")
+    private boolean roomLimitEnabled;
+
+    @Value("${chat.rate-limit.room.capacity}")
+    private double roomCapacity;
+
+    @Value("${chat.rate-limit.room.refill-per-second}")
+    private double roomRefillPerSecond;
+
+    public MessageRateLimiter(ObjectProvider<RedisTokenBucketLimiter> redisLimiter,
+                              MeterRegistry meterRegistry,
+                              @Value("${chat.rate-limit.local-cache.maximum-size}") long maximumSize) {
+        this.redisLimiter = redisLimiter.getIfAvailable();
+        this.meterRegistry = meterRegistry;
+        this.localBuckets = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterAccess(Duration.ofMinutes(10))
+            .build();
+    }
+
+    /**
+     * true nếu kiểm tra có gọi Redis (blocking); đường reactive khi đó chạy kiểm tra trên boundedElastic.
+     */
+    public boolean usesSharedTier() {
+        return enabled && redisLimiter != null;
+    }
+
+    public RateLimitDecision tryAcquire(Long customerId, Long roomId) {
+        if (!enabled) {
+            return RateLimitDecision.ALLOWED;
+        }
+
+        String customerKey = "c:" + customerId;
+        RateLimitDecision decision = check("customer", customerKey, customerCapacity, customerRefillPerSecond);
+        if (decision.allowed() && roomLimitEnabled && roomId != null) {
+            decision = check("room", "r:" + roomId + ":c:" + customerId, roomCapacity, roomRefillPerSecond);
+            if (!decision.allowed()) {
+                refund(customerKey, customerCapacity, customerRefillPerSecond, 1);
+            }
+        }
+        return decision;
+    }
+
+    /**
+     * Rate limit cho POST /messages/batch: mỗi tin nhắn tốn một token. Bucket theo customer cấp tối đa số item,
+     * sau đó bucket theo (room, customer) cấp cho các item của từng room; item vượt hạn mức bị từ chối theo thứ tự
+     * trong request (item sau bị từ chối trước). Item có roomId null không bị tính token.
+     * Trả về quyết định cho từng item, cùng thứ tự với {@code roomIds}.
+     */
+    public List<RateLimitDecision> tryAcquireBatch(Long customerId, List<Long> roomIds) {
+        List<RateLimitDecision> decisions = new ArrayList<>(Collections.nCopies(roomIds.size(), RateLimitDecision.ALLOWED));
+        if (!enabled) {
+            return decisions;
+        }
+
+        List<Integer> chargedIndexes = new ArrayList<>(roomIds.size());
+        for (int i = 0; i < roomIds.size(); i++) {
+            if (roomIds.get(i) != null) {
+                chargedIndexes.add(i);
+            }
+        }
+        if (chargedIndexes.isEmpty()) {
+            return decisions;
+        }
+
+        String customerKey = "c:" + customerId;
+        TokenGrant customerGrant = checkUpTo("customer", customerKey, customerCapacity, customerRefillPerSecond, chargedIndexes.size());
+        reject(decisions, chargedIndexes.subList(customerGrant.granted(), chargedIndexes.size()), customerGrant);
+        if (!roomLimitEnabled) {
+            return decisions;
+        }
+
+        Map<Long, List<Integer>> indexesByRoom = new LinkedHashMap<>();
+        for (int index : chargedIndexes.subList(0, customerGrant.granted())) {
+            indexesByRoom.computeIfAbsent(roomIds.get(index), id -> new ArrayList<>()).add(index);
+        }
+        int roomRejected = 0;
+        for (Map.Entry<Long, List<Integer>> entry : indexesByRoom.entrySet()) {
+            List<Integer> indexes = entry.getValue();
+            TokenGrant roomGrant = checkUpTo("room", "r:" + entry.getKey() + ":c:" + customerId, roomCapacity, roomRefillPerSecond, indexes.size());
+            reject(decisions, indexes.subList(roomGrant.granted(), indexes.size()), roomGrant);
+            roomRejected += indexes.size() - roomGrant.granted();
+        }
+        // Item bị bucket theo room từ chối đã tốn token của bucket theo customer
+        refund(customerKey, customerCapacity, customerRefillPerSecond, roomRejected);
+        return decisions;
+    }
+
+    private static void reject(List<RateLimitDecision> decisions, List<Integer> indexes, TokenGrant grant) {
+        if (indexes.isEmpty()) {
+            return;
+        }
+        RateLimitDecision rejected = RateLimitDecision.rejected(grant.retryAfterMillis());
+        for (int index : indexes) {
+            decisions.set(index, rejected);
+        }
+    }
+
+    private TokenGrant checkUpTo(String scope, String key, double capacity, double refillPerSecond, int permits) {
+        TokenBucket localBucket = localBuckets.get(key, k -> new TokenBucket(capacity, refillPerSecond));
+        TokenGrant local = localBucket.tryConsumeUpTo(permits);
+        if (local.granted() < permits) {
+            throttled("local", scope).increment(permits - local.granted());
+        }
+        if (redisLimiter == null || local.granted() == 0) {
+            return local;
+        }
+
+        try {
+            TokenGrant shared = redisLimiter.tryConsumeUpTo(key, capacity, refillPerSecond, local.granted());
+            if (shared.granted() < local.granted()) {
+                throttled("redis", scope).increment(local.granted() - shared.granted());
+                localBucket.refund(local.granted() - shared.granted());
+                return shared;
+            }
+            return local;
+        } catch (Exception e) {
+            System.err.println("Redis rate limit check failed for key " + key + ", allowing request: " + e.getMessage());
+            return local;
+        }
+    }
+
+    private RateLimitDecision check(String scope, String key, double capacity, double refillPerSecond) {
+        TokenBucket localBucket = localBuckets.get(key, k -> new TokenBucket(capacity, refillPerSecond));
+        RateLimitDecision local = localBucket.tryConsume();
+        if (!local.allowed()) {
+            throttled("local", scope).increment();
+            return local;
+        }
+        if (redisLimiter == null) {
+            return local;
+        }
+
+        try {
+            RateLimitDecision shared = redisLimiter.tryConsume(key, capacity, refillPerSecond);
+            if (!shared.allowed()) {
+                throttled("redis", scope).increment();
+                localBucket.refund(1);
+            }
+            return shared;
+        } catch (Exception e) {
+            System.err.println("Redis rate limit check failed for key " + key + ", allowing request: " + e.getMessage());
+            return local;
+        }
+    }
+
+    /**
+     * Trả lại token đã lấy ở cả hai tầng khi bucket kiểm tra sau từ chối. Lỗi Redis chỉ được log: tầng Redis
+     * fail-open nên token có thể chưa từng được lấy ở đó.
+     */
+    private void refund(String key, double capacity, double refillPerSecond, int permits) {
+        if (permits <= 0) {
+            return;
+        }
+        TokenBucket localBucket = localBuckets.getIfPresent(key);
+        if (localBucket != null) {
+            localBucket.refund(permits);
+        }
+        if (redisLimiter == null) {
+            return;
+        }
+        try {
+            redisLimiter.refund(key, capacity, refillPerSecond, permits);
+        } catch (Exception e) {
+            System.err.println("Redis rate limit refund failed for key " + key + ": " + e.getMessage());
+        }
+    }
+
+    private Counter throttled(String tier, String scope) {
+        return Counter.builder("chat.ratelimit.throttled")
+            .description("Requests rejected by the message rate limiter")
+            .tag("tier", tier)
+            .tag("scope", scope)
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.chat_command_service.ratelimit;
+
+/**
+ * Kết quả kiểm tra rate limit; {@code retryAfterMillis} chỉ có ý nghĩa khi bị từ chối.
+ */
+public record RateLimitDecision(boolean allowed, long retryAfterMillis) {
+
+    static final RateLimitDecision ALLOWED = new RateLimitDecision(true, 0);
+
+    static RateLimitDecision rejected(long retryAfterMillis) {
+        return new RateLimitDecision(false, Math.max(1, retryAfterMillis));
+    }
+}
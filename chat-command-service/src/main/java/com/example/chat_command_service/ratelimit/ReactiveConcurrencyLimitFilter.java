@@ -0,0 +1,84 @@
+package com.example.chat_command_service.ratelimit;
+
+import com.example.chat_command_service.dto.GenericResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Bản WebFlux của {@link ConcurrencyLimitFilter} cho stack reactive: permit được giữ tới khi response hoàn tất.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class ReactiveConcurrencyLimitFilter implements WebFilter {
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+
+    public ReactiveConcurrencyLimitFilter(AdaptiveConcurrencyLimiter limiter, MeterRegistry meterRegistry, ObjectMapper objectMapper) {
+        this.limiter = limiter;
+        this.meterRegistry = meterRegistry;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String endpoint = exchange.getRequest().getPath().pathWithinApplication().value();
+        if (!limiter.isEnabled()
+            || !HttpMethod.POST.equals(exchange.getRequest().getMethod())
+            || !ConcurrencyLimitFilter.LIMITED_PATHS.contains(endpoint)) {
+            return chain.filter(exchange);
+        }
+
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.tryAcquire();
+        if (permit == null) {
+            decisions(endpoint, "shed").increment();
+            return shed(exchange.getResponse());
+        }
+        decisions(endpoint, "accepted").increment();
+
+        return chain.filter(exchange).doFinally(signal -> {
+            HttpStatusCode status = exchange.getResponse().getStatusCode();
+            permit.release(signal != SignalType.ON_COMPLETE || (status != null && status.is5xxServerError()));
+        });
+    }
+
+    private Mono<Void> shed(ServerHttpResponse response) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(GenericResponse.failure("Server is overloaded. Please retry shortly."));
+        } catch (JsonProcessingException e) {
+            return Mono.error(e);
+        }
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+
+    private Counter decisions(String endpoint, String outcome) {
+        return Counter.builder("chat.concurrency.requests")
+            .description("Admission decisions of the adaptive concurrency limiter")
+            .tag("endpoint", endpoint)
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+}
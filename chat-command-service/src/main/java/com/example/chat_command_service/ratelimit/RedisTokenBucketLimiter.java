@@ -0,0 +1,62 @@
+package com.example.chat_command_service.ratelimit;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Tầng rate limit dùng chung giữa các instance: token bucket trong Redis, cập nhật nguyên tử bằng Lua script
+ * (đồng hồ lấy từ Redis nên không phụ thuộc lệch giờ giữa các instance).
+ */
+@Component
+@ConditionalOnProperty(name = "chat.rate-limit.redis.enabled", havingValue = "true")
+public class RedisTokenBucketLimiter {
+
+    private static final String KEY_PREFIX = "ratelimit:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final DefaultRedisScript<List> script;
+
+    public RedisTokenBucketLimiter(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+        this.script = new DefaultRedisScript<>();
+        this.script.setLocation(new ClassPathResource("scripts/token_bucket.lua"));
+        this.script.setResultType(List.class);
+    }
+
+    RateLimitDecision tryConsume(String key, double capacity, double refillPerSecond) {
+        TokenGrant grant = tryConsumeUpTo(key, capacity, refillPerSecond, 1);
+        return grant.granted() == 1 ? RateLimitDecision.ALLOWED : RateLimitDecision.rejected(grant.retryAfterMillis());
+    }
+
+    TokenGrant tryConsumeUpTo(String key, double capacity, double refillPerSecond, int permits) {
+        List<?> result = redisTemplate.execute(
+            script,
+            List.of(KEY_PREFIX + key),
+            String.valueOf(capacity),
+            String.valueOf(refillPerSecond / 1000d),
+            String.valueOf(permits)
+        );
+        if (result == null || result.size() < 2) {
+            throw new IllegalStateException("Unexpected token bucket script result: " + result);
+        }
+        return new TokenGrant((int) ((Number) result.get(0)).longValue(), ((Number) result.get(1)).longValue());
+    }
+
+    /**
+     * Trả lại token đã lấy (script nhận số token âm), không vượt capacity.
+     */
+    void refund(String key, double capacity, double refillPerSecond, int permits) {
+        redisTemplate.execute(
+            script,
+            List.of(KEY_PREFIX + key),
+            String.valueOf(capacity),
+            String.valueOf(refillPerSecond / 1000d),
+            String.valueOf(-permits)
+        );
+    }
+}
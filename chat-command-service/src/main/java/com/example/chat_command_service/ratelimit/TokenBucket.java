@@ -0,0 +1,61 @@
+package com.example.chat_command_service.ratelimit;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Token bucket trong bộ nhớ: tối đa {@code capacity} token, nạp lại {@code refillPerSecond} token mỗi giây.
+ */
+final class TokenBucket {
+
+    private final double capacity;
+    private final double refillPerNano;
+    private final ReentrantLock lock = new ReentrantLock();
+    private double tokens;
+    private long lastRefillNanos;
+
+    TokenBucket(double capacity, double refillPerSecond) {
+        this.capacity = capacity;
+        this.refillPerNano = refillPerSecond / 1_000_000_000d;
+        this.tokens = capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    RateLimitDecision tryConsume() {
+        TokenGrant grant = tryConsumeUpTo(1);
+        return grant.granted() == 1 ? RateLimitDecision.ALLOWED : RateLimitDecision.rejected(grant.retryAfterMillis());
+    }
+
+    /**
+     * Lấy tối đa {@code permits} token nguyên, hoặc ít hơn nếu bucket không đủ.
+     */
+    TokenGrant tryConsumeUpTo(int permits) {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * refillPerNano);
+            lastRefillNanos = now;
+
+            int granted = (int) Math.min(permits, Math.floor(tokens));
+            tokens -= granted;
+            if (granted == permits) {
+                return new TokenGrant(granted, 0);
+            }
+            long waitNanos = (long) Math.ceil((1 - tokens) / refillPerNano);
+            return new TokenGrant(granted, Math.max(1, waitNanos / 1_000_000));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Trả lại {@code permits} token đã lấy khi một tầng kiểm tra phía sau từ chối; không vượt capacity.
+     */
+    void refund(int permits) {
+        lock.lock();
+        try {
+            tokens = Math.min(capacity, tokens + permits);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.chat_command_service.ratelimit;
+
+/**
+ * Số token được cấp cho một yêu cầu nhiều token; {@code retryAfterMillis} là thời gian chờ tới token kế tiếp
+ * khi cấp thiếu.
+ */
+record TokenGrant(int granted, long retryAfterMillis) {
+}
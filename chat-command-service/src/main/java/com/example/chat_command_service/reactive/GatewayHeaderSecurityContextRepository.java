@@ -0,0 +1,36 @@
+package com.example.chat_command_service.reactive;
+
+import com.example.chat_command_service.config.GatewayAuthFilter;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.server.context.ServerSecurityContextRepository;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Bản reactive của {@link GatewayAuthFilter}: xác thực theo header X-Customer-Id do API Gateway gắn vào.
+ */
+class GatewayHeaderSecurityContextRepository implements ServerSecurityContextRepository {
+
+    @Override
+    public Mono<Void> save(ServerWebExchange exchange, SecurityContext context) {
+        return Mono.empty();
+    }
+
+    @Override
+    public Mono<SecurityContext> load(ServerWebExchange exchange) {
+        String customerIdHeader = exchange.getRequest().getHeaders().getFirst(GatewayAuthFilter.CUSTOMER_ID_HEADER);
+        if (!StringUtils.hasText(customerIdHeader)) {
+            return Mono.empty();
+        }
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+            customerIdHeader,
+            null,
+            AuthorityUtils.createAuthorityList("ROLE_USER")
+        );
+        return Mono.just(new SecurityContextImpl(authentication));
+    }
+}
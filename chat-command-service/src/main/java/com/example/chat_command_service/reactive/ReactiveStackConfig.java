@@ -0,0 +1,95 @@
+package com.example.chat_command_service.reactive;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.web.reactive.config.BlockingExecutionConfigurer;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+/**
+ * Stack reactive cho chat-command-service, bật bằng {@code spring.main.web-application-type=reactive}
+ * (biến môi trường CHAT_COMMAND_WEB_STACK).
+ * POST /message được phục vụ bởi {@link ReactiveMessageHandler} (router function, ưu tiên hơn controller annotation):
+ * WebFlux, R2DBC và cache async, không có lời gọi blocking nào trên request path.
+ * Các endpoint còn lại vẫn là {@code ChatCommandController} với cùng contract; WebFlux gọi các method blocking đó
+ * trên {@code applicationTaskExecutor} thay vì event loop.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@EnableWebFluxSecurity
+public class ReactiveStackConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionPool r2dbcConnectionFactory(@Value("${chat.reactive.r2dbc.url}") String url,
+                                                 @Value("${spring.datasource.username}") String username,
+                                                 @Value("${spring.datasource.password}") String password,
+                                                 @Value("${chat.reactive.r2dbc.pool.max-size}") int maxSize) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+            .option(ConnectionFactoryOptions.USER, username)
+            .option(ConnectionFactoryOptions.PASSWORD, password)
+            .build();
+        System.out.println("--- Reactive stack enabled: R2DBC pool (max " + maxSize + " connections) on " + url);
+        return new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+            .maxSize(maxSize)
+            .build());
+    }
+
+    @Bean
+    public DatabaseClient databaseClient(ConnectionFactory r2dbcConnectionFactory) {
+        return DatabaseClient.create(r2dbcConnectionFactory);
+    }
+
+    /**
+     * R2dbcTransactionManager không được đăng ký làm bean, để transaction manager JPA vẫn là mặc định
+     * cho các {@code @Transactional} hiện có.
+     */
+    @Bean
+    public TransactionalOperator r2dbcTransactionalOperator(ConnectionFactory r2dbcConnectionFactory) {
+        return TransactionalOperator.create(new R2dbcTransactionManager(r2dbcConnectionFactory));
+    }
+
+    @Bean
+    public WebFluxConfigurer blockingControllerExecution(@Qualifier("applicationTaskExecutor") AsyncTaskExecutor applicationTaskExecutor) {
+        return new WebFluxConfigurer() {
+            @Override
+            public void configureBlockingExecution(BlockingExecutionConfigurer configurer) {
+                configurer.setExecutor(applicationTaskExecutor);
+            }
+        };
+    }
+
+    @Bean
+    public RouterFunction<ServerResponse> reactiveMessageRoutes(ReactiveMessageHandler handler) {
+        return RouterFunctions.route()
+            .POST("/message", handler::sendMessage)
+            .build();
+    }
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+        return http
+            .csrf(ServerHttpSecurity.CsrfSpec::disable)
+            .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+            .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+            .securityContextRepository(new GatewayHeaderSecurityContextRepository())
+            .authorizeExchange(exchange -> exchange.anyExchange().authenticated())
+            .build();
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.chat_command_service.repository;
+
+import com.example.chat_command_service.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    /**
+     * Lô sự kiện tiếp theo theo relay_seq (sequence của database, xem V4), không theo id Snowflake.
+     */
+    @Query(value = "SELECT * FROM outbox_events ORDER BY relay_seq LIMIT :limit", nativeQuery = true)
+    List<OutboxEvent> findNextBatch(@Param("limit") int limit);
+
+    /**
+     * Chuyển sự kiện sang outbox_dead_letters (xóa và chép trong một câu lệnh).
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "WITH moved AS (DELETE FROM outbox_events WHERE id = :id RETURNING *) " +
+                   "INSERT INTO outbox_dead_letters (id, topic, event_key, event_type, payload, created_at, error, failed_at) " +
+                   "SELECT id, topic, event_key, event_type, payload, created_at, :error, now() FROM moved", nativeQuery = true)
+    int moveToDeadLetter(@Param("id") Long id, @Param("error") String error);
+}
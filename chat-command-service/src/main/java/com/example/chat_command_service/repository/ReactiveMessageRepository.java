@@ -0,0 +1,70 @@
+package com.example.chat_command_service.repository;
+
+import com.example.chat_command_service.model.Message;
+import com.example.chat_command_service.model.OutboxEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Ghi tin nhắn bằng R2DBC cho stack reactive: cấp roomSeq, INSERT messages và INSERT outbox_events.
+ * Các lệnh phải chạy trong cùng một transaction R2DBC (TransactionalOperator) để tin nhắn, roomSeq và sự kiện
+ * cùng commit hoặc cùng rollback, như {@link RoomSequenceRepository} và {@code KafkaProducerService} ở stack servlet.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveMessageRepository {
+
+    private static final String ALLOCATE_SQL =
+        "UPDATE rooms SET last_message_seq = last_message_seq + :count WHERE room_id = :roomId RETURNING last_message_seq";
+
+    private static final String INSERT_MESSAGE_SQL =
+        "INSERT INTO messages (message_id, room_id, room_seq, customer_id, content, sent_at) " +
+        "VALUES (:messageId, :roomId, :roomSeq, :customerId, :content, :sentAt)";
+
+    private static final String INSERT_OUTBOX_SQL =
+        "INSERT INTO outbox_events (id, topic, event_key, event_type, payload, created_at) " +
+        "VALUES (:id, :topic, :eventKey, :eventType, :payload, :createdAt)";
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveMessageRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * Cấp {@code count} số liên tiếp cho room và trả về số đầu tiên; dòng room bị khóa tới hết transaction.
+     */
+    public Mono<Long> allocateRoomSeq(Long roomId, int count) {
+        return databaseClient.sql(ALLOCATE_SQL)
+            .bind("count", count)
+            .bind("roomId", roomId)
+            .map(row -> row.get(0, Long.class))
+            .one()
+            .switchIfEmpty(Mono.error(() -> new IllegalStateException("Room " + roomId + " does not exist, cannot allocate message sequence.")))
+            .map(last -> last - count + 1);
+    }
+
+    public Mono<Void> insertMessage(Message message) {
+        return databaseClient.sql(INSERT_MESSAGE_SQL)
+            .bind("messageId", message.getMessageId())
+            .bind("roomId", message.getRoomId())
+            .bind("roomSeq", message.getRoomSeq())
+            .bind("customerId", message.getCustomerId())
+            .bind("content", message.getContent())
+            .bind("sentAt", message.getSentAt())
+            .then();
+    }
+
+    public Mono<Void> insertOutboxEvent(OutboxEvent outboxEvent) {
+        return databaseClient.sql(INSERT_OUTBOX_SQL)
+            .bind("id", outboxEvent.getId())
+            .bind("topic", outboxEvent.getTopic())
+            .bind("eventKey", outboxEvent.getEventKey())
+            .bind("eventType", outboxEvent.getEventType())
+            .bind("payload", outboxEvent.getPayload())
+            .bind("createdAt", outboxEvent.getCreatedAt())
+            .then();
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.chat_command_service.repository;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Đọc room_participants bằng R2DBC cho stack reactive (nạp cache membership khi miss).
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveRoomParticipantRepository {
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveRoomParticipantRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<List<Long>> findCustomerIdsByRoomId(Long roomId) {
+        return databaseClient.sql("SELECT customer_id FROM room_participants WHERE room_id = :roomId")
+            .bind("roomId", roomId)
+            .map(row -> row.get("customer_id", Long.class))
+            .all()
+            .collectList();
+    }
+}
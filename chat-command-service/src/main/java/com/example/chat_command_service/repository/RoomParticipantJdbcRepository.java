@@ -0,0 +1,43 @@
+package com.example.chat_command_service.repository;
+
+import com.example.chat_command_service.id.IdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Ghi room_participants bằng JDBC batch thay vì qua persistence context của JPA.
+ * Với reWriteBatchedInserts, mỗi batch được driver gộp thành các INSERT nhiều dòng,
+ * nên tạo room hàng nghìn thành viên chỉ tốn vài round-trip.
+ */
+@Repository
+public class RoomParticipantJdbcRepository {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO room_participants (id, room_id, customer_id, joined_at, last_read_message_id) VALUES (?, ?, ?, ?, NULL)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final IdGenerator idGenerator;
+
+    @Value("${chat.room.participant-insert-batch-size}")
+    private int batchSize;
+
+    public RoomParticipantJdbcRepository(JdbcTemplate jdbcTemplate, IdGenerator idGenerator) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idGenerator = idGenerator;
+    }
+
+    public void insertParticipants(Long roomId, List<Long> customerIds, Instant joinedAt) {
+        Timestamp joinedAtTimestamp = Timestamp.from(joinedAt);
+        jdbcTemplate.batchUpdate(INSERT_SQL, customerIds, batchSize, (ps, customerId) -> {
+            ps.setLong(1, idGenerator.nextId());
+            ps.setLong(2, roomId);
+            ps.setLong(3, customerId);
+            ps.setTimestamp(4, joinedAtTimestamp);
+        });
+    }
+}
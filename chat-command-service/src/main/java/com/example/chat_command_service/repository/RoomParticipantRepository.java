@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -17,4 +18,7 @@ public interface RoomParticipantRepository extends JpaRepository<RoomParticipant
     int updateLastReadMessageId(@Param("roomId") Long roomId, @Param("customerId") Long customerId, @Param("messageId") Long messageId);
 
     Optional<RoomParticipant> findByRoomIdAndCustomerId(Long roomId, Long customerId);
+
+    @Query("SELECT rp.customerId FROM RoomParticipant rp WHERE rp.roomId = :roomId")
+    List<Long> findCustomerIdsByRoomId(@Param("roomId") Long roomId);
 }
\ No newline at end of file
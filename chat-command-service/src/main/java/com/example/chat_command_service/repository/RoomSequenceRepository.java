@@ -0,0 +1,32 @@
+package com.example.chat_command_service.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Cấp số thứ tự tin nhắn theo room bằng {@code UPDATE ... RETURNING} trên rooms.last_message_seq.
+ * Dòng room bị khóa tới khi transaction kết thúc, nên các số được cấp liên tục và không có khoảng trống.
+ */
+@Repository
+public class RoomSequenceRepository {
+
+    private static final String ALLOCATE_SQL =
+        "UPDATE rooms SET last_message_seq = last_message_seq + ? WHERE room_id = ? RETURNING last_message_seq";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RoomSequenceRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Cấp {@code count} số liên tiếp cho room và trả về số đầu tiên. Phải được gọi trong transaction.
+     */
+    public long allocate(Long roomId, int count) {
+        Long last = jdbcTemplate.query(ALLOCATE_SQL, rs -> rs.next() ? rs.getLong(1) : null, count, roomId);
+        if (last == null) {
+            throw new IllegalStateException("Room " + roomId + " does not exist, cannot allocate message sequence.");
+        }
+        return last - count + 1;
+    }
+}
@@ -1,31 +1,36 @@
 package com.example.chat_command_service.service;
 
+import com.example.chat_command_service.dto.BatchMessageResult;
+import com.example.chat_command_service.dto.SendMessageRequest;
 import com.example.chat_command_service.model.Message;
 import com.example.chat_command_service.model.Room;
-import com.example.chat_command_service.model.RoomParticipant;
+import com.example.chat_command_service.ratelimit.RateLimitDecision;
 import com.example.chat_command_service.repository.MessageRepository;
+import com.example.chat_command_service.repository.RoomParticipantJdbcRepository;
 import com.example.chat_command_service.repository.RoomParticipantRepository;
 import com.example.chat_command_service.repository.RoomRepository;
+import com.example.chat_command_service.repository.RoomSequenceRepository;
 import com.example.chat_command_service.kafka.dto.MessageSentEvent;
 import com.example.chat_command_service.kafka.dto.ReadMarkerEvent;
 import com.example.chat_command_service.kafka.dto.RoomCreatedEvent;
 import com.example.chat_command_service.kafka.dto.RoomCreatedEvent.ParticipantDTO;
 import com.example.chat_command_service.kafka.KafkaProducerService;
 
-import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.HttpStatusCode;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.server.ResponseStatusException;
 
-import com.example.chat_command_service.dto.GenericResponse;
-import reactor.core.publisher.Mono;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 @Service
 public class ChatCommandService {
@@ -33,89 +38,222 @@ public class ChatCommandService {
     private final RoomParticipantRepository roomParticipantRepository;
     private final RoomRepository roomRepository;
     private final KafkaProducerService kafkaProducerService;
-    private final WebClient webClient;
+    private final CustomerNameCache customerNameCache;
+    private final RoomMembershipCache roomMembershipCache;
+    private final RoomParticipantJdbcRepository roomParticipantJdbcRepository;
+    private final RoomSequenceRepository roomSequenceRepository;
 
-    private static final String CUSTOMER_SERVICE_BASE_URL = "http://customer-management-service:8084";
+    @Value("${chat.room.event-chunk-size}")
+    private int roomEventChunkSize;
 
-    public ChatCommandService(MessageRepository messageRepository, RoomRepository roomRepository, KafkaProducerService kafkaProducerService, RoomParticipantRepository roomParticipantRepository, WebClient.Builder webClientBuilder) {
+    public ChatCommandService(MessageRepository messageRepository, RoomRepository roomRepository, KafkaProducerService kafkaProducerService, RoomParticipantRepository roomParticipantRepository, CustomerNameCache customerNameCache, RoomMembershipCache roomMembershipCache, RoomParticipantJdbcRepository roomParticipantJdbcRepository, RoomSequenceRepository roomSequenceRepository) {
         this.messageRepository = messageRepository;
         this.roomParticipantRepository = roomParticipantRepository;
         this.roomRepository = roomRepository;
         
         this.kafkaProducerService = kafkaProducerService;
-        this.webClient = webClientBuilder.build();
+        this.customerNameCache = customerNameCache;
+        this.roomMembershipCache = roomMembershipCache;
+        this.roomParticipantJdbcRepository = roomParticipantJdbcRepository;
+        this.roomSequenceRepository = roomSequenceRepository;
     }
     
     @Transactional
     public Message processNewMessage(Long roomId, Long senderId, String content) {
         checkRoomMembership(roomId, senderId);
+        // Resolve tên trước khi cấp roomSeq: allocate khóa dòng rooms tới hết transaction,
+        // không được giữ khóa đó trong lúc cache gọi customer-management-service
+        String senderFullName = customerNameCache.getFullName(senderId);
+
         Message message = new Message();
         message.setRoomId(roomId);
         message.setCustomerId(senderId);
         message.setContent(content);
         message.setSentAt(Instant.now());
+        message.setRoomSeq(roomSequenceRepository.allocate(roomId, 1));
         
         message = messageRepository.save(message);
-        String senderFullName = getCustomerFullName(senderId); 
 
+        publishMessageSentEvent(message, senderFullName);
         
+        return message;
+    }
+
+    /**
+     * Ghi nhiều tin nhắn trong một transaction (một batch INSERT) và ghi sự kiện của chúng vào outbox theo đúng thứ tự.
+     * Membership phải được kiểm tra trước khi gọi.
+     */
+    @Transactional
+    public List<Message> processNewMessages(List<Message> messages, Map<Long, String> senderFullNames) {
+        assignRoomSequences(messages);
+        List<Message> savedMessages = messageRepository.saveAll(messages);
+
+        for (Message message : savedMessages) {
+            publishMessageSentEvent(message, senderFullNames.get(message.getCustomerId()));
+        }
+
+        return savedMessages;
+    }
+
+    /**
+     * Xử lý một lô tin nhắn của cùng một sender (bot/integration): membership được kiểm tra một lần cho mỗi room,
+     * tên sender được resolve một lần, các tin hợp lệ được insert chung một batch và publish theo thứ tự gửi lên.
+     * Kết quả trả về theo từng item, cùng thứ tự với request.
+     */
+    @Transactional
+    public List<BatchMessageResult> processMessageBatch(Long senderId, List<SendMessageRequest> requests) {
+        BatchMessageResult[] results = new BatchMessageResult[requests.size()];
+        Map<Long, Boolean> membershipByRoom = new HashMap<>();
+        List<Message> messages = new ArrayList<>();
+        List<Integer> messageIndexes = new ArrayList<>();
+        Instant now = Instant.now();
+
+        for (int i = 0; i < requests.size(); i++) {
+            SendMessageRequest request = requests.get(i);
+            Long roomId = request != null ? request.getRoomId() : null;
+            if (roomId == null || request.getContent() == null || request.getContent().isEmpty()) {
+                results[i] = BatchMessageResult.rejected(i, roomId, "roomId and content cannot be empty.");
+                continue;
+            }
+            if (!membershipByRoom.computeIfAbsent(roomId, id -> checkRoomMembership(id, senderId))) {
+                results[i] = BatchMessageResult.rejected(i, roomId, "Forbidden: Customer " + senderId + " is not a participant of Room " + roomId);
+                continue;
+            }
+
+            Message message = new Message();
+            message.setRoomId(roomId);
+            message.setCustomerId(senderId);
+            message.setContent(request.getContent());
+            message.setSentAt(now);
+            messages.add(message);
+            messageIndexes.add(i);
+        }
+
+        if (!messages.isEmpty()) {
+            Map<Long, String> senderFullNames = Map.of(senderId, customerNameCache.getFullName(senderId));
+            List<Message> savedMessages = processNewMessages(messages, senderFullNames);
+            for (int j = 0; j < savedMessages.size(); j++) {
+                Message saved = savedMessages.get(j);
+                int index = messageIndexes.get(j);
+                results[index] = BatchMessageResult.accepted(index, saved.getRoomId(), saved.getMessageId());
+            }
+        }
+
+        System.out.println("--- Processed message batch from Customer ID " + senderId + ": " + messages.size() + "/" + requests.size() + " accepted across " + membershipByRoom.size() + " room(s).");
+
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Như {@link #processMessageBatch(Long, List)} nhưng chỉ xử lý các item được rate limiter cho phép
+     * ({@code rateLimits} cùng thứ tự với request); item bị từ chối nhận kết quả lỗi rate limit ở đúng vị trí.
+     */
+    @Transactional
+    public List<BatchMessageResult> processMessageBatch(Long senderId, List<SendMessageRequest> requests, List<RateLimitDecision> rateLimits) {
+        List<SendMessageRequest> allowedRequests = new ArrayList<>(requests.size());
+        List<Integer> allowedIndexes = new ArrayList<>(requests.size());
+        BatchMessageResult[] results = new BatchMessageResult[requests.size()];
+        for (int i = 0; i < requests.size(); i++) {
+            RateLimitDecision rateLimit = rateLimits.get(i);
+            if (rateLimit.allowed()) {
+                allowedRequests.add(requests.get(i));
+                allowedIndexes.add(i);
+            } else {
+                Long roomId = requests.get(i) != null ? requests.get(i).getRoomId() : null;
+                results[i] = BatchMessageResult.rejected(i, roomId, "Rate limit exceeded. Retry after " + rateLimit.retryAfterMillis() + " ms.");
+            }
+        }
+
+        if (!allowedRequests.isEmpty()) {
+            List<BatchMessageResult> processed = processMessageBatch(senderId, allowedRequests);
+            for (int j = 0; j < processed.size(); j++) {
+                BatchMessageResult result = processed.get(j);
+                int index = allowedIndexes.get(j);
+                result.setIndex(index);
+                results[index] = result;
+            }
+        }
+
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Cấp roomSeq cho các tin nhắn theo đúng thứ tự trong danh sách, một lần UPDATE cho mỗi room.
+     * Các room được khóa theo thứ tự roomId tăng dần để hai batch đồng thời không deadlock.
+     */
+    private void assignRoomSequences(List<Message> messages) {
+        Map<Long, List<Message>> messagesByRoom = new TreeMap<>();
+        for (Message message : messages) {
+            messagesByRoom.computeIfAbsent(message.getRoomId(), id -> new ArrayList<>()).add(message);
+        }
+        for (Map.Entry<Long, List<Message>> entry : messagesByRoom.entrySet()) {
+            long nextSeq = roomSequenceRepository.allocate(entry.getKey(), entry.getValue().size());
+            for (Message message : entry.getValue()) {
+                message.setRoomSeq(nextSeq++);
+            }
+        }
+    }
+
+    private void publishMessageSentEvent(Message message, String senderFullName) {
         MessageSentEvent event = new MessageSentEvent(
             message.getMessageId(),
             message.getRoomId(),
             message.getCustomerId(),
             senderFullName, 
             message.getContent(),
-            message.getSentAt()
+            message.getSentAt(),
+            message.getRoomSeq(),
+            null,
+            null
         );
         
         kafkaProducerService.sendMessageSentEvent(event);
-        
-        return message;
     }
 
     @Transactional
     public Room processNewRoom(String roomName, Long creatorId, List<Long> targetCustomerIds) {
         Instant now = Instant.now();
-        List<Long> allParticipantIds = new ArrayList<>(targetCustomerIds);
-        if (!allParticipantIds.contains(creatorId)) {
-             allParticipantIds.add(creatorId);
-        }
+        Set<Long> participantIdSet = new LinkedHashSet<>(targetCustomerIds);
+        participantIdSet.add(creatorId);
+        List<Long> allParticipantIds = new ArrayList<>(participantIdSet);
+
+        Map<Long, String> fullNames = customerNameCache.getFullNames(allParticipantIds);
 
         Room room = new Room();
         room.setRoomName(roomName);
         room.setCreatedBy(creatorId);
         room.setCreatedAt(now);
+        room.setLastMessageSeq(0L);
 
         room = roomRepository.save(room);
         Long newRoomId = room.getRoomId();
 
-        List<RoomParticipant> participants = new ArrayList<>();
-        List<ParticipantDTO> participantDTOs = new ArrayList<>();
-
+        List<ParticipantDTO> participantDTOs = new ArrayList<>(allParticipantIds.size());
         for (Long customerId : allParticipantIds) {
-            RoomParticipant participant = new RoomParticipant();
-            participant.setRoomId(newRoomId);
-            participant.setCustomerId(customerId);
-            participant.setJoinedAt(now);
-            participant.setLastReadMessageId(null);
-            participants.add(participant);
-            
-            String fullName = getCustomerFullName(customerId); 
-            
-            ParticipantDTO dto = new ParticipantDTO(customerId, fullName, now);
-            participantDTOs.add(dto);
+            participantDTOs.add(new ParticipantDTO(customerId, fullNames.get(customerId), now));
         }
-        roomParticipantRepository.saveAll(participants);
-
-        RoomCreatedEvent event = new RoomCreatedEvent(
-            newRoomId,
-            roomName,
-            creatorId,
-            now,
-            participantDTOs
-        );
 
-        kafkaProducerService.sendRoomCreatedEvent(event);
+        roomParticipantJdbcRepository.insertParticipants(newRoomId, allParticipantIds, now);
+        roomMembershipCache.registerRoom(newRoomId, allParticipantIds);
+
+        // Room lớn được phát thành nhiều RoomCreatedEvent (cùng key roomId nên giữ thứ tự), mỗi event một phần danh sách
+        int chunkCount = Math.max(1, (participantDTOs.size() + roomEventChunkSize - 1) / roomEventChunkSize);
+        for (int chunkIndex = 0; chunkIndex < chunkCount; chunkIndex++) {
+            int from = chunkIndex * roomEventChunkSize;
+            int to = Math.min(from + roomEventChunkSize, participantDTOs.size());
+
+            RoomCreatedEvent event = new RoomCreatedEvent(
+                newRoomId,
+                roomName,
+                creatorId,
+                now,
+                new ArrayList<>(participantDTOs.subList(from, to)),
+                chunkIndex,
+                chunkCount
+            );
+
+            kafkaProducerService.sendRoomCreatedEvent(event);
+        }
 
         return room;
     }
@@ -134,44 +272,8 @@ public class ChatCommandService {
         System.out.println("--- Processed Read Marker Update for Customer ID " + customerId + " in Room ID " + roomId + " with Message ID " + messageId);
     }
 
-    private Mono<GenericResponse<String>> createGetCustomerFullNameMono(Long customerId) {
-        return webClient.get()
-            .uri(CUSTOMER_SERVICE_BASE_URL + "/fullName/customerId/" + customerId) 
-            .header("X-Customer-Id", String.valueOf(customerId)) 
-            .retrieve()
-            .onStatus(HttpStatusCode::isError, clientResponse -> 
-                clientResponse.bodyToMono(new ParameterizedTypeReference<GenericResponse<String>>() {})
-                    .flatMap(response -> {
-                        String message = response.getMessage() != null ? response.getMessage() : "Unknown error";
-                        return Mono.error(new RuntimeException("Customer Full Name Fetch Failed: " + message));
-                    })
-            )
-            .bodyToMono(new ParameterizedTypeReference<GenericResponse<String>>() {}); 
-    }
-
-    private String getCustomerFullName(Long customerId) {
-        try {
-            Mono<GenericResponse<String>> mono = createGetCustomerFullNameMono(customerId);
-            GenericResponse<String> response = mono.block(); 
-            
-            if (response != null && response.isSuccess() && response.getData() != null) {
-                return response.getData(); 
-            }
-            
-            String message = response != null && response.getMessage() != null ? 
-                             response.getMessage() : 
-                             "Customer full name could not be retrieved.";
-            throw new RuntimeException("Missing or invalid 'fullName' in customer record: " + message);
-            
-        } catch (Exception e) {
-            System.err.println("Failed to fetch customer name for ID " + customerId + ": " + e.getMessage());
-            throw new RuntimeException("Failed to retrieve user information for ID: " + customerId, e);
-        }
-    }
-
-    private boolean checkRoomMembership(Long roomId, Long customerId) {
-        Optional<RoomParticipant> participantOpt = roomParticipantRepository.findByRoomIdAndCustomerId(roomId, customerId);
-        return participantOpt.isPresent();
+    public boolean checkRoomMembership(Long roomId, Long customerId) {
+        return roomMembershipCache.isMember(roomId, customerId);
     }
 
     public void enforceRoomMembership(Long roomId, Long customerId) {
@@ -0,0 +1,164 @@
+package com.example.chat_command_service.service;
+
+import com.example.chat_command_service.dto.GenericResponse;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Near-cache tên hiển thị của customer, tránh gọi customer-management-service cho mỗi tin nhắn.
+ * Entry được làm mới nền sau {@code refresh-after}; nếu lần làm mới thất bại, giá trị cũ vẫn được dùng
+ * cho tới {@code expire-after}.
+ * Cache dạng async để lời gọi HTTP blocking không chạy bên trong lock của cache (tránh pin carrier khi dùng virtual thread).
+ */
+@Service
+public class CustomerNameCache {
+
+    private static final String CUSTOMER_SERVICE_BASE_URL = "http://customer-management-service:8084";
+
+    private final WebClient webClient;
+    private final AsyncLoadingCache<Long, String> cache;
+
+    public CustomerNameCache(WebClient.Builder webClientBuilder,
+                             MeterRegistry meterRegistry,
+                             @Qualifier("cacheLoaderExecutor") Executor cacheLoaderExecutor,
+                             @Value("${chat.customer-name-cache.maximum-size}") long maximumSize,
+                             @Value("${chat.customer-name-cache.refresh-after}") Duration refreshAfter,
+                             @Value("${chat.customer-name-cache.expire-after}") Duration expireAfter) {
+        this.webClient = webClientBuilder.build();
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .refreshAfterWrite(refreshAfter)
+            .expireAfterWrite(expireAfter)
+            .executor(cacheLoaderExecutor)
+            .recordStats()
+            .buildAsync(new CacheLoader<>() {
+                @Override
+                public String load(Long customerId) {
+                    return fetchFullName(customerId);
+                }
+
+                @Override
+                public Map<Long, String> loadAll(Set<? extends Long> customerIds) {
+                    return fetchFullNames(customerIds);
+                }
+            });
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "customerFullName");
+    }
+
+    public String getFullName(Long customerId) {
+        return join(cache.get(customerId));
+    }
+
+    /**
+     * Phiên bản không blocking của {@link #getFullName(Long)}: future hoàn tất ngay nếu tên đã có trong cache.
+     */
+    public CompletableFuture<String> getFullNameAsync(Long customerId) {
+        return cache.get(customerId);
+    }
+
+    /**
+     * Lấy tên của nhiều customer; các id chưa có trong cache được tải bằng một lần gọi batch.
+     * Ném {@link ResponseStatusException} (400) nếu có id không tồn tại.
+     */
+    public Map<Long, String> getFullNames(Collection<Long> customerIds) {
+        return join(cache.getAll(customerIds));
+    }
+
+    public void invalidate(Long customerId) {
+        cache.synchronous().invalidate(customerId);
+        System.out.println("--- Evicted cached full name for Customer ID " + customerId);
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private Mono<GenericResponse<String>> createGetCustomerFullNameMono(Long customerId) {
+        return webClient.get()
+            .uri(CUSTOMER_SERVICE_BASE_URL + "/fullName/customerId/" + customerId)
+            .header("X-Customer-Id", String.valueOf(customerId))
+            .retrieve()
+            .onStatus(HttpStatusCode::isError, clientResponse ->
+                clientResponse.bodyToMono(new ParameterizedTypeReference<GenericResponse<String>>() {})
+                    .flatMap(response -> {
+                        String message = response.getMessage() != null ? response.getMessage() : "Unknown error";
+                        return Mono.error(new RuntimeException("Customer Full Name Fetch Failed: " + message));
+                    })
+            )
+            .bodyToMono(new ParameterizedTypeReference<GenericResponse<String>>() {});
+    }
+
+    private Map<Long, String> fetchFullNames(Set<? extends Long> customerIds) {
+        try {
+            GenericResponse<Map<Long, String>> response = webClient.post()
+                .uri(CUSTOMER_SERVICE_BASE_URL + "/fullNames")
+                .header("X-Customer-Id", String.valueOf(customerIds.iterator().next()))
+                .bodyValue(Map.of("customerIds", customerIds))
+                .retrieve()
+                .onStatus(status -> status.value() == 404, clientResponse ->
+                    clientResponse.bodyToMono(new ParameterizedTypeReference<GenericResponse<Map<Long, String>>>() {})
+                        .flatMap(body -> Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, body.getMessage())))
+                )
+                .bodyToMono(new ParameterizedTypeReference<GenericResponse<Map<Long, String>>>() {})
+                .block();
+
+            if (response != null && response.isSuccess() && response.getData() != null) {
+                return response.getData();
+            }
+            throw new RuntimeException("Customer full names could not be retrieved: " + (response != null ? response.getMessage() : "No response body."));
+
+        } catch (ResponseStatusException e) {
+            throw e;
+        } catch (Exception e) {
+            System.err.println("Failed to fetch customer names for IDs " + customerIds + ": " + e.getMessage());
+            throw new RuntimeException("Failed to retrieve user information for IDs: " + customerIds, e);
+        }
+    }
+
+    private String fetchFullName(Long customerId) {
+        try {
+            Mono<GenericResponse<String>> mono = createGetCustomerFullNameMono(customerId);
+            GenericResponse<String> response = mono.block();
+
+            if (response != null && response.isSuccess() && response.getData() != null) {
+                return response.getData();
+            }
+
+            String message = response != null && response.getMessage() != null ?
+                             response.getMessage() :
+                             "Customer full name could not be retrieved.";
+            throw new RuntimeException("Missing or invalid 'fullName' in customer record: " + message);
+
+        } catch (Exception e) {
+            System.err.println("Failed to fetch customer name for ID " + customerId + ": " + e.getMessage());
+            throw new RuntimeException("Failed to retrieve user information for ID: " + customerId, e);
+        }
+    }
+}
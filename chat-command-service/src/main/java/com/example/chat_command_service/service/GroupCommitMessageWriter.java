@@ -0,0 +1,170 @@
+package com.example.chat_command_service.service;
+
+import com.example.chat_command_service.model.Message;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group commit cho POST /message: gom các tin nhắn đồng thời trong tối đa {@code linger-ms} hoặc {@code max-batch-size}
+ * tin, ghi chúng bằng một transaction (multi-row INSERT + outbox) và hoàn tất future của từng caller khi batch commit.
+ */
+@Service
+public class GroupCommitMessageWriter {
+
+    private final ChatCommandService chatCommandService;
+    private final CustomerNameCache customerNameCache;
+
+    @Value("${chat.message.group-commit.enabled}")
+    private boolean enabled;
+
+    @Value("${chat.message.group-commit.max-batch-size}")
+    private int maxBatchSize;
+
+    @Value("${chat.message.group-commit.linger-ms}")
+    private long lingerMs;
+
+    @Value("${chat.message.group-commit.queue-capacity}")
+    private int queueCapacity;
+
+    private BlockingQueue<PendingMessage> queue;
+    private Thread worker;
+    private volatile boolean running;
+
+    public GroupCommitMessageWriter(ChatCommandService chatCommandService, CustomerNameCache customerNameCache) {
+        this.chatCommandService = chatCommandService;
+        this.customerNameCache = customerNameCache;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        worker = new Thread(this::runLoop, "message-group-commit");
+        worker.setDaemon(true);
+        worker.start();
+        System.out.println("--- Group commit enabled for /message (maxBatchSize=" + maxBatchSize + ", lingerMs=" + lingerMs + ")");
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (worker == null) {
+            return;
+        }
+        running = false;
+        worker.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Đưa tin nhắn vào hàng đợi group commit mà không blocking thread gọi: tên sender được lấy từ cache async,
+     * future hoàn tất khi batch chứa tin nhắn commit.
+     */
+    public CompletableFuture<Message> submit(Long roomId, Long senderId, String content) {
+        Message message = new Message();
+        message.setRoomId(roomId);
+        message.setCustomerId(senderId);
+        message.setContent(content);
+        message.setSentAt(Instant.now());
+
+        return customerNameCache.getFullNameAsync(senderId)
+            .thenCompose(senderFullName -> enqueue(message, senderFullName));
+    }
+
+    private CompletableFuture<Message> enqueue(Message message, String senderFullName) {
+        CompletableFuture<Message> future = new CompletableFuture<>();
+        if (!running || !queue.offer(new PendingMessage(message, senderFullName, future))) {
+            future.completeExceptionally(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Message write queue is full."));
+        }
+        return future;
+    }
+
+    private void runLoop() {
+        List<PendingMessage> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingMessage first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        queue.drainTo(batch, maxBatchSize - batch.size());
+                        break;
+                    }
+                    PendingMessage next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                System.err.println("Group commit loop error: " + e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingMessage> batch) {
+        List<Message> messages = new ArrayList<>(batch.size());
+        Map<Long, String> senderFullNames = new HashMap<>();
+        for (PendingMessage pending : batch) {
+            messages.add(pending.message());
+            senderFullNames.put(pending.message().getCustomerId(), pending.senderFullName());
+        }
+
+        try {
+            chatCommandService.processNewMessages(messages, senderFullNames);
+            for (PendingMessage pending : batch) {
+                pending.future().complete(pending.message());
+            }
+        } catch (Exception e) {
+            System.err.println("Group commit of " + batch.size() + " messages failed, retrying individually: " + e.getMessage());
+            for (PendingMessage pending : batch) {
+                retryAlone(pending);
+            }
+        }
+    }
+
+    private void retryAlone(PendingMessage pending) {
+        pending.message().setMessageId(null);
+        try {
+            chatCommandService.processNewMessages(List.of(pending.message()), Map.of(pending.message().getCustomerId(), pending.senderFullName()));
+            pending.future().complete(pending.message());
+        } catch (Exception e) {
+            pending.future().completeExceptionally(e);
+        }
+    }
+
+    private record PendingMessage(Message message, String senderFullName, CompletableFuture<Message> future) {
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.chat_command_service.service;
+
+import com.example.chat_command_service.id.IdGenerator;
+import com.example.chat_command_service.kafka.KafkaProducerService;
+import com.example.chat_command_service.kafka.dto.MessageSentEvent;
+import com.example.chat_command_service.model.Message;
+import com.example.chat_command_service.model.OutboxEvent;
+import com.example.chat_command_service.repository.ReactiveMessageRepository;
+import com.example.chat_command_service.tracing.MessageLatencyTracer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+/**
+ * Bản reactive của {@link ChatCommandService#processNewMessage}: cấp roomSeq, INSERT tin nhắn và ghi
+ * MessageSentEvent vào outbox trong một transaction R2DBC. OutboxRelay gửi sự kiện lên Kafka như ở stack servlet.
+ * Tên sender phải được resolve trước (không giữ khóa dòng room trong lúc chờ customer-management-service).
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveChatCommandService {
+
+    private final ReactiveMessageRepository messageRepository;
+    private final KafkaProducerService kafkaProducerService;
+    private final IdGenerator idGenerator;
+    private final TransactionalOperator transactionalOperator;
+    private final MessageLatencyTracer latencyTracer;
+
+    public ReactiveChatCommandService(ReactiveMessageRepository messageRepository, KafkaProducerService kafkaProducerService, IdGenerator idGenerator, @Qualifier("r2dbcTransactionalOperator") TransactionalOperator transactionalOperator, MessageLatencyTracer latencyTracer) {
+        this.messageRepository = messageRepository;
+        this.kafkaProducerService = kafkaProducerService;
+        this.idGenerator = idGenerator;
+        this.transactionalOperator = transactionalOperator;
+        this.latencyTracer = latencyTracer;
+    }
+
+    public Mono<Message> processNewMessage(Long roomId, Long senderId, String content, String senderFullName) {
+        Message message = new Message();
+        message.setRoomId(roomId);
+        message.setCustomerId(senderId);
+        message.setContent(content);
+
+        return messageRepository.allocateRoomSeq(roomId, 1)
+            .flatMap(roomSeq -> {
+                // Id và sentAt được cấp sau khi giữ khóa dòng room, như Hibernate cấp id khi save ở stack servlet,
+                // để thứ tự messageId trong một room trùng với thứ tự roomSeq
+                message.setMessageId(idGenerator.nextId());
+                message.setSentAt(Instant.now());
+                message.setRoomSeq(roomSeq);
+                MessageSentEvent event = new MessageSentEvent(
+                    message.getMessageId(),
+                    message.getRoomId(),
+                    message.getCustomerId(),
+                    senderFullName,
+                    message.getContent(),
+                    message.getSentAt(),
+                    message.getRoomSeq(),
+                    null,
+                    null
+                );
+                OutboxEvent outboxEvent = kafkaProducerService.messageSentOutboxEvent(event);
+                outboxEvent.setId(idGenerator.nextId());
+
+                return messageRepository.insertMessage(message)
+                    .then(messageRepository.insertOutboxEvent(outboxEvent))
+                    .thenReturn(event);
+            })
+            .as(transactionalOperator::transactional)
+            .map(event -> {
+                latencyTracer.stage("db_commit", event, Instant.now());
+                System.out.println("--- Đã ghi sự kiện MessageSentEvent vào outbox (R2DBC) cho Room ID: " + event.getRoomId());
+                return message;
+            });
+    }
+}
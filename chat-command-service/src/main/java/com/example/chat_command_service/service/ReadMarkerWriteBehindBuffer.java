@@ -0,0 +1,114 @@
+package com.example.chat_command_service.service;
+
+import com.example.chat_command_service.kafka.KafkaProducerService;
+import com.example.chat_command_service.kafka.dto.ReadMarkerEvent;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind cho read marker: chỉ giữ messageId lớn nhất cho mỗi (room, customer), rồi cứ mỗi
+ * {@code flush-interval-ms} ghi xuống Postgres bằng một batch UPDATE và phát một ReadMarkerEvent đã gộp cho mỗi key.
+ * Nếu flush thất bại, các marker được gộp lại vào buffer để thử lại ở lần sau.
+ */
+@Service
+public class ReadMarkerWriteBehindBuffer {
+
+    private static final String UPDATE_SQL =
+        "UPDATE room_participants SET last_read_message_id = ?, joined_at = CURRENT_TIMESTAMP " +
+        "WHERE room_id = ? AND customer_id = ? " +
+        "AND (last_read_message_id IS NULL OR last_read_message_id < ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final KafkaProducerService kafkaProducerService;
+    private final ConcurrentHashMap<MarkerKey, Long> pending = new ConcurrentHashMap<>();
+
+    @Value("${chat.read-marker.write-behind.enabled}")
+    private boolean enabled;
+
+    public ReadMarkerWriteBehindBuffer(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, KafkaProducerService kafkaProducerService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.kafkaProducerService = kafkaProducerService;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Ghi nhận marker vào buffer; membership phải được kiểm tra trước khi gọi.
+     */
+    public void record(Long roomId, Long customerId, Long messageId) {
+        pending.merge(new MarkerKey(roomId, customerId), messageId, Math::max);
+    }
+
+    @Scheduled(fixedDelayString = "${chat.read-marker.write-behind.flush-interval-ms}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<MarkerKey> keys = new ArrayList<>(pending.size());
+        List<Long> messageIds = new ArrayList<>(pending.size());
+        for (MarkerKey key : pending.keySet()) {
+            Long messageId = pending.remove(key);
+            if (messageId != null) {
+                keys.add(key);
+                messageIds.add(messageId);
+            }
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        try {
+            Integer published = transactionTemplate.execute(status -> writeBatch(keys, messageIds));
+            System.out.println("--- Flushed " + keys.size() + " read marker(s), " + published + " advanced.");
+        } catch (Exception e) {
+            System.err.println("Read marker flush failed, re-buffering " + keys.size() + " marker(s): " + e.getMessage());
+            for (int i = 0; i < keys.size(); i++) {
+                pending.merge(keys.get(i), messageIds.get(i), Math::max);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void drain() {
+        flush();
+    }
+
+    private int writeBatch(List<MarkerKey> keys, List<Long> messageIds) {
+        List<Object[]> args = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            MarkerKey key = keys.get(i);
+            Long messageId = messageIds.get(i);
+            args.add(new Object[] { messageId, key.roomId(), key.customerId(), messageId });
+        }
+
+        int[] updateCounts = jdbcTemplate.batchUpdate(UPDATE_SQL, args);
+
+        int published = 0;
+        for (int i = 0; i < keys.size(); i++) {
+            // Bỏ qua các marker không tiến lên (đã có messageId lớn hơn trong DB)
+            if (updateCounts[i] == 0) {
+                continue;
+            }
+            MarkerKey key = keys.get(i);
+            kafkaProducerService.sendReadMarkerEvent(new ReadMarkerEvent(key.roomId(), key.customerId(), messageIds.get(i)));
+            published++;
+        }
+        return published;
+    }
+
+    private record MarkerKey(Long roomId, Long customerId) {
+    }
+}
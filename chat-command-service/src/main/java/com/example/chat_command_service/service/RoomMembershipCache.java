@@ -0,0 +1,111 @@
+package com.example.chat_command_service.service;
+
+import com.example.chat_command_service.repository.RoomParticipantRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Cache thành viên của room: roomId -> mảng customerId đã sắp xếp (long[] nguyên thủy, tra cứu bằng binary search).
+ * Được nạp lazy từ room_participants và cập nhật sau khi transaction tạo room commit; room chưa có thành viên
+ * không được cache.
+ * Truy vấn JDBC chạy bên ngoài lock của cache (không dùng {@code cache.get(key, loader)}) để virtual thread
+ * không pin carrier, và vẫn dùng connection của transaction hiện tại.
+ */
+@Service
+public class RoomMembershipCache {
+
+    private static final long[] NO_MEMBERS = new long[0];
+
+    private final RoomParticipantRepository roomParticipantRepository;
+    private final Cache<Long, long[]> cache;
+
+    public RoomMembershipCache(RoomParticipantRepository roomParticipantRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${chat.room-membership-cache.maximum-size}") long maximumSize) {
+        this.roomParticipantRepository = roomParticipantRepository;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "roomMembership");
+    }
+
+    public boolean isMember(Long roomId, Long customerId) {
+        if (roomId == null || customerId == null) {
+            return false;
+        }
+        long[] members = cache.getIfPresent(roomId);
+        if (members == null) {
+            members = remember(roomId, loadMembers(roomId));
+        }
+        return Arrays.binarySearch(members, customerId) >= 0;
+    }
+
+    /**
+     * Phiên bản không blocking của {@link #isMember(Long, Long)}: khi cache miss, danh sách thành viên được nạp
+     * bằng {@code loader} (đường ghi reactive dùng R2DBC).
+     */
+    public Mono<Boolean> isMember(Long roomId, Long customerId, Function<Long, Mono<List<Long>>> loader) {
+        if (roomId == null || customerId == null) {
+            return Mono.just(false);
+        }
+        long[] members = cache.getIfPresent(roomId);
+        if (members != null) {
+            return Mono.just(Arrays.binarySearch(members, customerId) >= 0);
+        }
+        return loader.apply(roomId)
+            .map(customerIds -> Arrays.binarySearch(remember(roomId, toMembers(customerIds)), customerId) >= 0);
+    }
+
+    public void registerRoom(Long roomId, Collection<Long> customerIds) {
+        long[] members = toSortedArray(customerIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.put(roomId, members);
+                }
+            });
+        } else {
+            cache.put(roomId, members);
+        }
+    }
+
+    private long[] loadMembers(Long roomId) {
+        return toMembers(roomParticipantRepository.findCustomerIdsByRoomId(roomId));
+    }
+
+    // Giữ entry đã có nếu một lần nạp khác (hoặc registerRoom) ghi trước.
+    // Kết quả rỗng không được cache: room có thể vừa được tạo trên instance khác và chưa commit lúc đọc,
+    // cache NO_MEMBERS sẽ từ chối thành viên thật cho tới khi entry bị loại.
+    private long[] remember(Long roomId, long[] loaded) {
+        if (loaded.length == 0) {
+            return loaded;
+        }
+        long[] members = cache.asMap().putIfAbsent(roomId, loaded);
+        return members != null ? members : loaded;
+    }
+
+    private static long[] toMembers(Collection<Long> customerIds) {
+        long[] members = toSortedArray(customerIds);
+        return members.length == 0 ? NO_MEMBERS : members;
+    }
+
+    private static long[] toSortedArray(Collection<Long> customerIds) {
+        long[] members = customerIds.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(members);
+        return members;
+    }
+}
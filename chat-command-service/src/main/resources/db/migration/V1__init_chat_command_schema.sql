@@ -0,0 +1,72 @@
+-- Schema ban đầu của chat-command-service.
+-- Không drop bảng nào: với baseline-on-migrate (baseline-version=0), V1 cũng chạy trên database đã có các bảng do
+-- Hibernate (ddl-auto) tạo trước đây, nên bảng đã tồn tại được giữ nguyên cùng dữ liệu.
+CREATE TABLE IF NOT EXISTS rooms (
+    room_id     BIGINT                   NOT NULL,
+    room_name   VARCHAR(255),
+    created_by  BIGINT                   NOT NULL,
+    created_at  TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    CONSTRAINT pk_rooms PRIMARY KEY (room_id)
+);
+
+CREATE TABLE IF NOT EXISTS room_participants (
+    id                    BIGINT                   NOT NULL,
+    room_id               BIGINT                   NOT NULL,
+    customer_id           BIGINT                   NOT NULL,
+    joined_at             TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    last_read_message_id  BIGINT,
+    CONSTRAINT pk_room_participants PRIMARY KEY (id)
+);
+
+-- Phục vụ kiểm tra membership (room_id) và cập nhật read marker (room_id, customer_id)
+CREATE UNIQUE INDEX IF NOT EXISTS idx_room_customer ON room_participants (room_id, customer_id);
+
+-- messages được hash-partition theo room_id: mọi truy vấn theo room chỉ chạm một partition.
+-- Khóa chính phải chứa khóa partition, nên là (room_id, message_id); message_id (Snowflake) tăng theo thời gian
+-- nên index này cũng phục vụ đọc tin nhắn mới nhất / theo khoảng của một room.
+-- Bảng messages cũ (không partition, do Hibernate tạo) được chép sang bảng partition rồi mới bị xoá.
+DO $$
+DECLARE
+    partition_count INT := ${message_partitions};
+    existing_kind "char";
+BEGIN
+    SELECT relkind INTO existing_kind FROM pg_class WHERE oid = to_regclass('messages');
+    IF existing_kind = 'p' THEN
+        RETURN;
+    END IF;
+    IF existing_kind IS NOT NULL THEN
+        ALTER TABLE messages RENAME TO messages_unpartitioned;
+    END IF;
+
+    CREATE TABLE messages (
+        message_id   BIGINT                   NOT NULL,
+        room_id      BIGINT                   NOT NULL,
+        customer_id  BIGINT                   NOT NULL,
+        content      TEXT                     NOT NULL,
+        sent_at      TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+        CONSTRAINT pk_messages PRIMARY KEY (room_id, message_id)
+    ) PARTITION BY HASH (room_id);
+
+    FOR i IN 0 .. partition_count - 1 LOOP
+        EXECUTE format(
+            'CREATE TABLE messages_p%s PARTITION OF messages FOR VALUES WITH (MODULUS %s, REMAINDER %s)',
+            i, partition_count, i
+        );
+    END LOOP;
+
+    IF existing_kind IS NOT NULL THEN
+        INSERT INTO messages (message_id, room_id, customer_id, content, sent_at)
+        SELECT message_id, room_id, customer_id, content, sent_at FROM messages_unpartitioned;
+        DROP TABLE messages_unpartitioned;
+    END IF;
+END $$;
+
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id          BIGINT                   NOT NULL,
+    topic       VARCHAR(255)             NOT NULL,
+    event_key   VARCHAR(255)             NOT NULL,
+    event_type  VARCHAR(255)             NOT NULL,
+    payload     TEXT                     NOT NULL,
+    created_at  TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    CONSTRAINT pk_outbox_events PRIMARY KEY (id)
+);
@@ -0,0 +1,21 @@
+-- Số thứ tự tin nhắn theo từng room, không có khoảng trống: rooms.last_message_seq được tăng trong cùng transaction
+-- với INSERT messages (khóa dòng room), nên rollback cũng trả lại số thứ tự.
+ALTER TABLE rooms ADD COLUMN last_message_seq BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE messages ADD COLUMN room_seq BIGINT;
+
+UPDATE messages m
+SET room_seq = numbered.seq
+FROM (
+    SELECT room_id, message_id, ROW_NUMBER() OVER (PARTITION BY room_id ORDER BY message_id) AS seq
+    FROM messages
+) numbered
+WHERE m.room_id = numbered.room_id AND m.message_id = numbered.message_id;
+
+UPDATE rooms r
+SET last_message_seq = counts.max_seq
+FROM (SELECT room_id, MAX(room_seq) AS max_seq FROM messages GROUP BY room_id) counts
+WHERE r.room_id = counts.room_id;
+
+ALTER TABLE messages ALTER COLUMN room_seq SET NOT NULL;
+
+CREATE UNIQUE INDEX idx_messages_room_seq ON messages (room_id, room_seq);
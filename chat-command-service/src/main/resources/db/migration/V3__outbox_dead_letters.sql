@@ -0,0 +1,13 @@
+-- Sự kiện outbox không relay được (payload không decode được, Kafka từ chối vĩnh viễn) được chuyển sang đây
+-- để không chặn các sự kiện phía sau.
+CREATE TABLE outbox_dead_letters (
+    id          BIGINT                   NOT NULL,
+    topic       VARCHAR(255)             NOT NULL,
+    event_key   VARCHAR(255)             NOT NULL,
+    event_type  VARCHAR(255)             NOT NULL,
+    payload     TEXT                     NOT NULL,
+    created_at  TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    error       TEXT,
+    failed_at   TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    CONSTRAINT pk_outbox_dead_letters PRIMARY KEY (id)
+);
@@ -0,0 +1,17 @@
+-- Thứ tự relay của outbox do database cấp: id Snowflake được sinh trên nhiều node với đồng hồ lệch nhau nên không
+-- còn theo thứ tự commit. relay_seq lấy từ sequence lúc INSERT; các tin cùng room được ghi sau khi khóa dòng room
+-- (cấp roomSeq) nên relay_seq của chúng tăng theo đúng thứ tự commit.
+ALTER TABLE outbox_events ADD COLUMN relay_seq BIGINT;
+
+UPDATE outbox_events o
+SET relay_seq = numbered.seq
+FROM (SELECT id, ROW_NUMBER() OVER (ORDER BY id) AS seq FROM outbox_events) numbered
+WHERE o.id = numbered.id;
+
+ALTER TABLE outbox_events ALTER COLUMN relay_seq SET NOT NULL;
+ALTER TABLE outbox_events ALTER COLUMN relay_seq ADD GENERATED ALWAYS AS IDENTITY;
+
+SELECT setval(pg_get_serial_sequence('outbox_events', 'relay_seq'), COALESCE(MAX(relay_seq), 0) + 1, false)
+FROM outbox_events;
+
+CREATE INDEX idx_outbox_events_relay_seq ON outbox_events (relay_seq);
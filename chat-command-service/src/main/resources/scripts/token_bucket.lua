@@ -0,0 +1,37 @@
+-- Token bucket nguyên tử. KEYS[1] = key của bucket, ARGV[1] = capacity, ARGV[2] = số token nạp lại mỗi ms,
+-- ARGV[3] = số token cần lấy (mặc định 1); số âm là trả lại token khi tầng kiểm tra sau từ chối.
+-- Trả về {granted, retryAfterMs}: granted là số token lấy được (tối đa ARGV[3]); retryAfterMs > 0 khi cấp thiếu.
+-- Khi trả lại token, trả về {0, 0}.
+local capacity = tonumber(ARGV[1])
+local refill_per_ms = tonumber(ARGV[2])
+local permits = tonumber(ARGV[3]) or 1
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local state = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+local tokens = tonumber(state[1])
+local ts = tonumber(state[2])
+if tokens == nil or ts == nil then
+    tokens = capacity
+    ts = now
+end
+
+tokens = math.min(capacity, tokens + math.max(0, now - ts) * refill_per_ms)
+
+local granted = 0
+local retry_after = 0
+if permits < 0 then
+    tokens = math.min(capacity, tokens - permits)
+else
+    granted = math.min(permits, math.floor(tokens))
+    tokens = tokens - granted
+    if granted < permits then
+        retry_after = math.max(1, math.ceil((1 - tokens) / refill_per_ms))
+    end
+end
+
+redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', tostring(now))
+redis.call('PEXPIRE', KEYS[1], math.ceil(capacity / refill_per_ms) + 1000)
+
+return {granted, retry_after}
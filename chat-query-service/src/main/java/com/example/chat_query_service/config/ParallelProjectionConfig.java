@@ -0,0 +1,91 @@
+package com.example.chat_query_service.config;
+
+import com.example.chat_query_service.kafka.ParallelProjectionConsumer;
+import com.example.chat_query_service.kafka.ProjectionExecutor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Projection song song (chat.projection.parallel.enabled=true): listener chỉ đẩy record vào {@link ProjectionExecutor},
+ * worker ack sau khi xử lý xong. Với asyncAcks, container chỉ commit offset liên tục đã hoàn tất theo từng partition,
+ * nên record chưa xử lý xong không bao giờ bị commit vượt qua.
+ * Record bị từ chối vì hàng đợi đầy được error handler seek lại và thử lại không giới hạn (consumer đang pause nên
+ * chỉ được giao lại sau khi resume); các lỗi khác giữ backoff mặc định.
+ */
+@Configuration
+@ConditionalOnProperty(name = "chat.projection.parallel.enabled", havingValue = "true")
+public class ParallelProjectionConfig {
+
+    private static final long QUEUE_FULL_RETRY_MS = 100;
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> parallelKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setAsyncAcks(true);
+
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler();
+        errorHandler.setBackOffFunction((record, exception) -> isQueueFull(exception)
+            ? new FixedBackOff(QUEUE_FULL_RETRY_MS, FixedBackOff.UNLIMITED_ATTEMPTS)
+            : null);
+        factory.setCommonErrorHandler(errorHandler);
+        return factory;
+    }
+
+    private static boolean isQueueFull(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RejectedExecutionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Bean(destroyMethod = "close")
+    public ProjectionExecutor projectionExecutor(ObjectProvider<KafkaListenerEndpointRegistry> registry,
+                                                 MeterRegistry meterRegistry,
+                                                 @Value("${chat.projection.parallel.workers}") int workers,
+                                                 @Value("${chat.projection.parallel.queue-capacity}") int queueCapacity) {
+        System.out.println("--- Projection song song với " + workers + " worker, hàng đợi " + queueCapacity + " mỗi worker.");
+        ProjectionExecutor executor = new ProjectionExecutor("projection", workers, queueCapacity,
+            () -> setPaused(registry.getObject(), true),
+            () -> setPaused(registry.getObject(), false));
+        Gauge.builder("chat.projection.queued", executor, ProjectionExecutor::queuedTasks)
+            .description("Projection tasks waiting in worker queues")
+            .register(meterRegistry);
+        return executor;
+    }
+
+    private static void setPaused(KafkaListenerEndpointRegistry registry, boolean paused) {
+        for (String listenerId : ParallelProjectionConsumer.LISTENER_IDS) {
+            MessageListenerContainer container = registry.getListenerContainer(listenerId);
+            if (container == null) {
+                continue;
+            }
+            if (paused) {
+                container.pause();
+            } else {
+                container.resume();
+            }
+        }
+        System.out.println("--- Projection consumers " + (paused ? "paused: worker queue full." : "resumed."));
+    }
+}
@@ -9,23 +9,32 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.example.chat_query_service.dto.UserOnlineStatus;
+import com.example.chat_query_service.dto.SyncResponse;
 import com.example.chat_query_service.service.OnlineStatusService;
+import com.example.chat_query_service.service.SyncService;
 
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 
 @RestController
 public class ChatQueryController {
 
+    private static final int MAX_SEQ_RANGE_SIZE = 200;
+
     private final ChatProjectionService chatProjectionService;
     private final OnlineStatusService onlineStatusService;
+    private final SyncService syncService;
 
-    public ChatQueryController(ChatProjectionService chatProjectionService, OnlineStatusService onlineStatusService) {
+    public ChatQueryController(ChatProjectionService chatProjectionService, OnlineStatusService onlineStatusService, SyncService syncService) {
         this.chatProjectionService = chatProjectionService;
         this.onlineStatusService = onlineStatusService;
+        this.syncService = syncService;
     }
 
 
@@ -53,6 +62,50 @@ public class ChatQueryController {
         }
     }
 
+    @GetMapping("/sync")
+    public ResponseEntity<GenericResponse<SyncResponse>> sync(@RequestParam(required = false) String cursor, Authentication authentication) {
+        if (authentication == null || authentication.getPrincipal() == null) {
+            return ResponseEntity.status(401).body(GenericResponse.failure("Unauthorized or missing customer ID."));
+        }
+
+        Instant since;
+        try {
+            since = cursor == null || cursor.isEmpty() ? null : Instant.parse(cursor);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(GenericResponse.failure("Invalid cursor, expected an ISO-8601 instant."));
+        }
+
+        try {
+            Long customerId = Long.parseLong(authentication.getPrincipal().toString());
+            SyncResponse response = syncService.sync(customerId, since);
+            return ResponseEntity.ok(GenericResponse.success("Sync delta retrieved successfully.", response));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.status(400).body(GenericResponse.failure("Invalid customer ID format."));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(GenericResponse.failure("An internal error occurred: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Tổng số tin chưa đọc của user hiện tại trên mọi room, đọc từ một document tổng hợp theo user.
+     */
+    @GetMapping("/unread/total")
+    public ResponseEntity<GenericResponse<Long>> getUnreadTotal(Authentication authentication) {
+        if (authentication == null || authentication.getPrincipal() == null) {
+            return ResponseEntity.status(401).body(GenericResponse.failure("Unauthorized or missing customer ID."));
+        }
+
+        try {
+            Long customerId = Long.parseLong(authentication.getPrincipal().toString());
+            long total = chatProjectionService.getUnreadTotal(customerId);
+            return ResponseEntity.ok(GenericResponse.success("Unread total retrieved successfully.", total));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.status(400).body(GenericResponse.failure("Invalid customer ID format."));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(GenericResponse.failure("An internal error occurred: " + e.getMessage()));
+        }
+    }
+
     @GetMapping("/internal/rooms/customerId/{customerId}")
     public ResponseEntity<GenericResponse<List<ChatRoomView>>> getRoomsByCustomerIdInternal(@PathVariable Long customerId) {
         try {
@@ -118,6 +171,26 @@ public class ChatQueryController {
         }
     }
 
+    @GetMapping("/message/roomId/{roomId}/seq")
+    public ResponseEntity<GenericResponse<List<MessageDocument>>> getMessagesBySeqRange(@PathVariable Long roomId, @RequestParam Long from, @RequestParam Long to, Authentication authentication) {
+        if (authentication == null || authentication.getPrincipal() == null) {
+            return ResponseEntity.status(401).body(GenericResponse.failure("Unauthorized or missing customer ID."));
+        }
+        if (from < 1 || to < from) {
+            return ResponseEntity.badRequest().body(GenericResponse.failure("Invalid sequence range: from must be >= 1 and to >= from."));
+        }
+
+        try {
+            chatProjectionService.enforceRoomMembership(roomId, Long.parseLong(authentication.getPrincipal().toString()));
+            List<MessageDocument> messages = chatProjectionService.getMessagesByRoomSeqRange(roomId, from, to, MAX_SEQ_RANGE_SIZE);
+            return ResponseEntity.ok(GenericResponse.success("Messages in sequence range retrieved successfully.", messages));
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(GenericResponse.failure("Forbidden: " + e.getReason()));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(GenericResponse.failure("An internal error occurred: " + e.getMessage()));
+        }
+    }
+
     @GetMapping("/onlineStatus/roomId/{roomId}")
     public ResponseEntity<GenericResponse<List<UserOnlineStatus>>> getOnlineStatusByRoom(@PathVariable Long roomId, Authentication authentication) {
         if (authentication == null || authentication.getPrincipal() == null) {
@@ -2,16 +2,22 @@ package com.example.chat_query_service.document;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 @Data
 @Document(collection = "chatRoomViews")
-@CompoundIndex(name = "user_rooms_sort_idx", def = "{'participantIds': 1, 'updatedAt': -1}")
+@CompoundIndexes({
+    @CompoundIndex(name = "user_rooms_sort_idx", def = "{'participantIds': 1, 'updatedAt': -1}"),
+    @CompoundIndex(name = "user_rooms_projected_idx", def = "{'participantIds': 1, 'projectedAt': -1}")
+})
 public class ChatRoomView {
 
     @Id
@@ -22,7 +28,10 @@ public class ChatRoomView {
     
     private List<Long> participantIds;
 
-    private Map<Long, Boolean> unreadStatus;
+    /**
+     * Số tin nhắn chưa đọc của từng participant (không tính tin do chính họ gửi).
+     */
+    private Map<Long, Long> unreadCounts;
 
     private LastMessageInfo lastMessage;
 
@@ -32,6 +41,30 @@ public class ChatRoomView {
 
     private Instant updatedAt;
 
+    /**
+     * Thời điểm chat-query ghi thay đổi gần nhất của room (tạo room, thêm participant, tin nhắn mới, kể cả tin đến trễ).
+     * Dùng làm cursor của /sync thay cho updatedAt (sentAt phía producer).
+     */
+    private Instant projectedAt;
+
+    /**
+     * Thời điểm room được projection lần đầu; room xuất hiện sau cursor của client được trả kèm tin nhắn mới nhất.
+     */
+    private Instant firstProjectedAt;
+
+    /**
+     * Cờ unread suy ra từ {@link #unreadCounts}, giữ cho client và API cũ; không lưu vào MongoDB.
+     */
+    @Transient
+    public Map<Long, Boolean> getUnreadStatus() {
+        if (unreadCounts == null) {
+            return null;
+        }
+        Map<Long, Boolean> unreadStatus = new HashMap<>(unreadCounts.size() * 2);
+        unreadCounts.forEach((customerId, count) -> unreadStatus.put(customerId, count != null && count > 0));
+        return unreadStatus;
+    }
+
     @Data
     public static class LastMessageInfo {
         private Long messageId;
@@ -3,19 +3,26 @@ package com.example.chat_query_service.document;
 import lombok.Data;
 import org.springframework.data.annotation.Id; // Giữ lại import này
 import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
 
 @Data
 @Document(collection = "messages")
-@CompoundIndex(name = "room_message_idx", def = "{'roomId': 1, 'messageId': -1}")
+@CompoundIndexes({
+    @CompoundIndex(name = "room_message_idx", def = "{'roomId': 1, 'messageId': -1}"),
+    @CompoundIndex(name = "room_seq_idx", def = "{'roomId': 1, 'roomSeq': 1}"),
+    @CompoundIndex(name = "room_projected_idx", def = "{'roomId': 1, 'projectedAt': -1}")
+})
 public class MessageDocument {
     @Id 
     private Long messageId;
 
     private Long roomId;
 
+    private Long roomSeq;
+
     private Long senderId;
     
     private String senderFullName;
@@ -23,4 +30,7 @@ public class MessageDocument {
     private String content;
 
     private Instant sentAt; 
+
+    // Thời điểm chat-query ghi tin nhắn, so với cursor của /sync
+    private Instant projectedAt;
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.example.chat_query_service.document;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Tổng số tin nhắn chưa đọc của một customer trên mọi room, được cộng/trừ cùng lúc với
+ * {@link ChatRoomView#getUnreadCounts()} để /unread/total không phải quét các room.
+ */
+@Data
+@Document(collection = "unreadTotals")
+public class UnreadTotal {
+    @Id
+    private Long customerId;
+
+    private Long total;
+}
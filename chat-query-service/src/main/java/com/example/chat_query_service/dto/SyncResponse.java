@@ -0,0 +1,32 @@
+package com.example.chat_query_service.dto;
+
+import com.example.chat_query_service.document.ChatRoomView;
+import com.example.chat_query_service.document.MessageDocument;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncResponse {
+    private List<RoomDelta> rooms;
+    // Truyền lại trong lần gọi /sync tiếp theo
+    private Instant cursor;
+    // Chỉ ở lần sync đầu (không có cursor): còn room cũ hơn max-rooms chưa trả về, client tải qua /rooms
+    private boolean hasMoreRooms;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RoomDelta {
+        private ChatRoomView room;
+        // Tin nhắn mới (mới nhất trước), tối đa messagesPerRoom
+        private List<MessageDocument> messages;
+        // true nếu còn tin cũ hơn chưa trả về; client tải tiếp qua /message/roomId/{roomId}/index/{indexMessageId}
+        private boolean hasMoreMessages;
+    }
+}
@@ -4,16 +4,22 @@ import com.example.chat_query_service.kafka.dto.MessageSentEvent;
 import com.example.chat_query_service.kafka.dto.ReadMarkerEvent;
 import com.example.chat_query_service.kafka.dto.RoomCreatedEvent;
 import com.example.chat_query_service.service.ChatProjectionService;
+import com.example.chat_query_service.tracing.MessageLatencyTracer;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.util.List;
+
 @Service
 public class KafkaConsumerService {
 
     private final ChatProjectionService projectionService;
+    private final MessageLatencyTracer latencyTracer;
 
-    public KafkaConsumerService(ChatProjectionService projectionService) {
+    public KafkaConsumerService(ChatProjectionService projectionService, MessageLatencyTracer latencyTracer) {
         this.projectionService = projectionService;
+        this.latencyTracer = latencyTracer;
     }
 
     @KafkaListener(
@@ -32,11 +38,19 @@ public class KafkaConsumerService {
     @KafkaListener(
         topics = "${spring.kafka.topics.message-sent}", 
         groupId = "${spring.kafka.consumer.group-id-message}",
-        containerFactory = "kafkaListenerContainerFactory"
+        containerFactory = "kafkaListenerContainerFactory",
+        autoStartup = "#{!${chat.projection.batch.enabled} and !${chat.projection.parallel.enabled}}"
     )
     public void handleMessageSent(MessageSentEvent event) {
         try {
+            Instant receivedAt = Instant.now();
             projectionService.handleMessageSentEvent(event);
+            Instant projectedAt = Instant.now();
+
+            latencyTracer.stage("projection", event, projectedAt);
+            latencyTracer.hop("kafka_consume", event.getPublishedAt(), receivedAt);
+            latencyTracer.hop("projection", receivedAt, projectedAt);
+            latencyTracer.logIfSlow("projection", event, receivedAt, projectedAt);
         } catch (Exception e) {
             System.err.println("Error processing MessageSentEvent for Message ID " + event.getMessageId() + ": " + e.getMessage());
         }
@@ -45,7 +59,8 @@ public class KafkaConsumerService {
     @KafkaListener(
         topics = "${spring.kafka.topics.read-marker-updated}", 
         groupId = "${spring.kafka.consumer.group-id-read-marker}",
-        containerFactory = "kafkaListenerContainerFactory"
+        containerFactory = "kafkaListenerContainerFactory",
+        autoStartup = "#{!${chat.projection.batch.enabled} and !${chat.projection.parallel.enabled}}"
     )
     public void handleReadMarker(ReadMarkerEvent event) {
         try {
@@ -54,4 +69,55 @@ public class KafkaConsumerService {
             System.err.println("Error processing ReadMarkerEvent for Room ID " + event.getRoomId() + ", Customer ID " + event.getCustomerId() + ": " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Chế độ theo lô (chat.projection.batch.enabled=true): thay cho {@link #handleMessageSent}, cùng consumer group.
+     * Nếu cả chế độ song song được bật thì {@link ParallelProjectionConsumer} được dùng.
+     * Lô lỗi được xử lý lại từng bản ghi thay vì bỏ cả lô.
+     */
+    @KafkaListener(
+        id = "messageSentBatchListener",
+        topics = "${spring.kafka.topics.message-sent}",
+        groupId = "${spring.kafka.consumer.group-id-message}",
+        containerFactory = "batchKafkaListenerContainerFactory",
+        autoStartup = "#{${chat.projection.batch.enabled} and !${chat.projection.parallel.enabled}}"
+    )
+    public void handleMessageSentBatch(List<MessageSentEvent> events) {
+        try {
+            Instant receivedAt = Instant.now();
+            projectionService.handleMessageSentEvents(events);
+            Instant projectedAt = Instant.now();
+
+            for (MessageSentEvent event : events) {
+                latencyTracer.stage("projection", event, projectedAt);
+                latencyTracer.hop("kafka_consume", event.getPublishedAt(), receivedAt);
+                latencyTracer.hop("projection", receivedAt, projectedAt);
+                latencyTracer.logIfSlow("projection", event, receivedAt, projectedAt);
+            }
+        } catch (Exception e) {
+            // Upsert theo messageId nên xử lý lại từng bản ghi là an toàn; chỉ bản ghi lỗi thực sự bị bỏ qua
+            System.err.println("Error processing batch of " + events.size() + " MessageSentEvents, falling back to per-record: " + e.getMessage());
+            events.forEach(this::handleMessageSent);
+        }
+    }
+
+    /**
+     * Chế độ theo lô (chat.projection.batch.enabled=true): thay cho {@link #handleReadMarker}, cùng consumer group.
+     */
+    @KafkaListener(
+        id = "readMarkerBatchListener",
+        topics = "${spring.kafka.topics.read-marker-updated}",
+        groupId = "${spring.kafka.consumer.group-id-read-marker}",
+        containerFactory = "batchKafkaListenerContainerFactory",
+        autoStartup = "#{${chat.projection.batch.enabled} and !${chat.projection.parallel.enabled}}"
+    )
+    public void handleReadMarkerBatch(List<ReadMarkerEvent> events) {
+        try {
+            projectionService.handleReadMarkerEvents(events);
+        } catch (Exception e) {
+            // Marker chỉ tiến ($max) nên áp lại từng sự kiện không đếm trùng
+            System.err.println("Error processing batch of " + events.size() + " ReadMarkerEvents, falling back to per-record: " + e.getMessage());
+            events.forEach(this::handleReadMarker);
+        }
+    }
+}
@@ -28,8 +28,8 @@ public class KafkaProducerService {
         System.out.println("--- Đã gửi sự kiện RoomUpdatedEvent (View) cho Room ID: " + roomView.getRoomId());
     }
 
-    public void sendReadStatusUpdatedEvent(Long roomId, Long customerId, Boolean isUnread) {
-        ReadStatusUpdateEvent event = new ReadStatusUpdateEvent(roomId, customerId, isUnread);
+    public void sendReadStatusUpdatedEvent(Long roomId, Long customerId, Boolean isUnread, Long unreadCount) {
+        ReadStatusUpdateEvent event = new ReadStatusUpdateEvent(roomId, customerId, isUnread, unreadCount);
         System.out.println("Sending ReadStatusUpdateEvent to Kafka topic " + readStatusTopic + " for Customer ID: " + customerId);
         kafkaTemplate.send(readStatusTopic, String.valueOf(roomId), event);
     }
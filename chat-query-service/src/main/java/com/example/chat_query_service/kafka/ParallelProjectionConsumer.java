@@ -0,0 +1,93 @@
+package com.example.chat_query_service.kafka;
+
+import com.example.chat_query_service.kafka.dto.MessageSentEvent;
+import com.example.chat_query_service.kafka.dto.ReadMarkerEvent;
+import com.example.chat_query_service.service.ChatProjectionService;
+import com.example.chat_query_service.tracing.MessageLatencyTracer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Chế độ song song (chat.projection.parallel.enabled=true): thay cho listener message-sent và read-marker của
+ * {@link KafkaConsumerService}, cùng consumer group. Record được chia cho các worker của {@link ProjectionExecutor}
+ * theo roomId và chỉ được ack sau khi projection xong.
+ * Khi hàng đợi của worker đầy, listener ném {@link RejectedExecutionException} thay vì chặn luồng consumer: consumer
+ * đã bị pause, error handler seek lại record đó và record được giao lại sau khi hàng đợi vơi (xem ParallelProjectionConfig).
+ * Khi partition bị thu hồi, record còn trong hàng đợi vẫn được xử lý nhưng không commit được và sẽ được giao lại;
+ * projection idempotent (upsert theo messageId, lastMessage/read marker chỉ tiến lên) nên xử lý lại là an toàn.
+ */
+@Service
+@ConditionalOnProperty(name = "chat.projection.parallel.enabled", havingValue = "true")
+public class ParallelProjectionConsumer {
+
+    static final String MESSAGE_SENT_LISTENER_ID = "messageSentParallelListener";
+    static final String READ_MARKER_LISTENER_ID = "readMarkerParallelListener";
+    public static final List<String> LISTENER_IDS = List.of(MESSAGE_SENT_LISTENER_ID, READ_MARKER_LISTENER_ID);
+
+    private final ChatProjectionService projectionService;
+    private final ProjectionExecutor projectionExecutor;
+    private final MessageLatencyTracer latencyTracer;
+
+    public ParallelProjectionConsumer(ChatProjectionService projectionService, ProjectionExecutor projectionExecutor, MessageLatencyTracer latencyTracer) {
+        this.projectionService = projectionService;
+        this.projectionExecutor = projectionExecutor;
+        this.latencyTracer = latencyTracer;
+    }
+
+    @KafkaListener(
+        id = MESSAGE_SENT_LISTENER_ID,
+        topics = "${spring.kafka.topics.message-sent}",
+        groupId = "${spring.kafka.consumer.group-id-message}",
+        containerFactory = "parallelKafkaListenerContainerFactory"
+    )
+    public void handleMessageSent(MessageSentEvent event, Acknowledgment ack) {
+        Instant receivedAt = Instant.now();
+        submit(event.getRoomId(), () -> {
+            try {
+                Instant startedAt = Instant.now();
+                projectionService.handleMessageSentEvent(event);
+                Instant projectedAt = Instant.now();
+
+                latencyTracer.stage("projection", event, projectedAt);
+                latencyTracer.hop("kafka_consume", event.getPublishedAt(), receivedAt);
+                latencyTracer.hop("projection_queue", receivedAt, startedAt);
+                latencyTracer.hop("projection", startedAt, projectedAt);
+                latencyTracer.logIfSlow("projection", event, receivedAt, projectedAt);
+            } catch (Exception e) {
+                System.err.println("Error processing MessageSentEvent for Message ID " + event.getMessageId() + ": " + e.getMessage());
+            } finally {
+                ack.acknowledge();
+            }
+        });
+    }
+
+    @KafkaListener(
+        id = READ_MARKER_LISTENER_ID,
+        topics = "${spring.kafka.topics.read-marker-updated}",
+        groupId = "${spring.kafka.consumer.group-id-read-marker}",
+        containerFactory = "parallelKafkaListenerContainerFactory"
+    )
+    public void handleReadMarker(ReadMarkerEvent event, Acknowledgment ack) {
+        submit(event.getRoomId(), () -> {
+            try {
+                projectionService.handleReadMarkerEvent(event);
+            } catch (Exception e) {
+                System.err.println("Error processing ReadMarkerEvent for Room ID " + event.getRoomId() + ", Customer ID " + event.getCustomerId() + ": " + e.getMessage());
+            } finally {
+                ack.acknowledge();
+            }
+        });
+    }
+
+    private void submit(Long roomId, Runnable task) {
+        if (!projectionExecutor.trySubmit(roomId, task)) {
+            throw new RejectedExecutionException("Projection queue full for Room ID " + roomId);
+        }
+    }
+}
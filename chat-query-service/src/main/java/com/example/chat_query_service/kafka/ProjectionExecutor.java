@@ -0,0 +1,129 @@
+package com.example.chat_query_service.kafka;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Chia tác vụ projection cho N worker theo hash của key (roomId): cùng room luôn vào cùng worker nên thứ tự
+ * theo room được giữ, còn các room khác nhau chạy song song.
+ * Mỗi worker có hàng đợi giới hạn; khi một hàng đợi đầy, {@code onSaturated} được gọi (pause consumer) và
+ * {@link #trySubmit} trả về false ngay thay vì chặn luồng consumer; {@code onDrained} được gọi khi mọi hàng đợi
+ * đã xuống dưới một nửa.
+ */
+public class ProjectionExecutor implements AutoCloseable {
+
+    private static final long POLL_INTERVAL_MS = 100;
+
+    private final List<Worker> workers;
+    private final int drainedThreshold;
+    private final Runnable onSaturated;
+    private final Runnable onDrained;
+    private final AtomicBoolean saturated = new AtomicBoolean();
+    private volatile boolean closed;
+
+    public ProjectionExecutor(String name, int workerCount, int queueCapacity, Runnable onSaturated, Runnable onDrained) {
+        if (workerCount < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("workerCount and queueCapacity must be positive");
+        }
+        this.drainedThreshold = queueCapacity / 2;
+        this.onSaturated = onSaturated;
+        this.onDrained = onDrained;
+        this.workers = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            Worker worker = new Worker(new ArrayBlockingQueue<>(queueCapacity));
+            worker.thread = new Thread(worker, name + "-" + i);
+            worker.thread.setDaemon(true);
+            workers.add(worker);
+        }
+        workers.forEach(worker -> worker.thread.start());
+    }
+
+    /**
+     * Đưa tác vụ vào hàng đợi của worker ứng với key mà không chặn. Trả về false nếu hàng đợi đó đầy; khi đó
+     * tác vụ không được nhận và luồng gọi phải giao lại nó sau.
+     */
+    public boolean trySubmit(Object key, Runnable task) {
+        if (closed) {
+            throw new RejectedExecutionException("ProjectionExecutor is closed");
+        }
+        int hash = key.hashCode();
+        Worker worker = workers.get(Math.floorMod(hash ^ (hash >>> 16), workers.size()));
+        if (worker.queue.offer(task)) {
+            return true;
+        }
+        if (saturated.compareAndSet(false, true)) {
+            onSaturated.run();
+        }
+        return false;
+    }
+
+    public int queuedTasks() {
+        int queued = 0;
+        for (Worker worker : workers) {
+            queued += worker.queue.size();
+        }
+        return queued;
+    }
+
+    /**
+     * Ngừng nhận tác vụ mới và chờ các worker xử lý hết hàng đợi hiện tại.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        closed = true;
+        for (Worker worker : workers) {
+            worker.thread.join(TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+
+    private void resumeIfDrained() {
+        if (!saturated.get()) {
+            return;
+        }
+        for (Worker worker : workers) {
+            if (worker.queue.size() > drainedThreshold) {
+                return;
+            }
+        }
+        if (saturated.compareAndSet(true, false)) {
+            onDrained.run();
+        }
+    }
+
+    private final class Worker implements Runnable {
+
+        private final BlockingQueue<Runnable> queue;
+        private Thread thread;
+
+        private Worker(BlockingQueue<Runnable> queue) {
+            this.queue = queue;
+        }
+
+        @Override
+        public void run() {
+            while (!closed || !queue.isEmpty()) {
+                Runnable task;
+                try {
+                    task = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (task == null) {
+                    continue;
+                }
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    System.err.println("Projection task failed on " + thread.getName() + ": " + t.getMessage());
+                }
+                resumeIfDrained();
+            }
+        }
+    }
+}
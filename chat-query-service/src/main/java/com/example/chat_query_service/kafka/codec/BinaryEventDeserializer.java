@@ -0,0 +1,47 @@
+package com.example.chat_query_service.kafka.codec;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.Map;
+
+/**
+ * Deserializer Kafka dùng {@link EventCodec}. Record JSON cũ (chưa có MAGIC) được chuyển cho JsonDeserializer,
+ * cấu hình qua các property {@code spring.json.*} sẵn có, để đọc hết các record ghi trước khi đổi codec.
+ */
+public class BinaryEventDeserializer implements Deserializer<Object> {
+
+    private final JsonDeserializer<Object> jsonFallback = new JsonDeserializer<>();
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        jsonFallback.configure(configs, isKey);
+    }
+
+    @Override
+    public Object deserialize(String topic, byte[] data) {
+        return deserialize(topic, null, data);
+    }
+
+    @Override
+    public Object deserialize(String topic, Headers headers, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (!EventCodec.isBinary(data)) {
+            return headers != null ? jsonFallback.deserialize(topic, headers, data) : jsonFallback.deserialize(topic, data);
+        }
+        try {
+            return EventCodec.decode(data);
+        } catch (IllegalArgumentException e) {
+            throw new SerializationException("Could not decode event from topic " + topic, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        jsonFallback.close();
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.chat_query_service.kafka.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Bộ đọc tương ứng với {@link BinaryEventWriter}. Ném {@link IllegalArgumentException} khi payload bị cắt cụt hoặc hỏng.
+ */
+final class BinaryEventReader {
+
+    private final byte[] buffer;
+    private int position;
+
+    BinaryEventReader(byte[] buffer, int offset) {
+        this.buffer = buffer;
+        this.position = offset;
+    }
+
+    int readByte() {
+        require(1);
+        return buffer[position++] & 0xFF;
+    }
+
+    int readVarInt() {
+        int result = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte();
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint at offset " + position);
+    }
+
+    long readVarLong() {
+        long zigzag = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = readByte();
+            zigzag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+        }
+        throw new IllegalArgumentException("Malformed varlong at offset " + position);
+    }
+
+    String readString() {
+        int length = readVarInt();
+        require(length);
+        String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    Instant readInstant() {
+        long seconds = readVarLong();
+        int nanos = readVarInt();
+        return Instant.ofEpochSecond(seconds, nanos);
+    }
+
+    private void require(int length) {
+        if (length < 0 || position + length > buffer.length) {
+            throw new IllegalArgumentException("Truncated event payload: need " + length + " byte(s) at offset " + position);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.chat_query_service.kafka.codec;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Serializer Kafka dùng {@link EventCodec}; thay cho JsonSerializer (không cần type header).
+ */
+public class BinaryEventSerializer implements Serializer<Object> {
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            return EventCodec.encode(data);
+        } catch (IllegalArgumentException e) {
+            throw new SerializationException("Could not encode event for topic " + topic, e);
+        }
+    }
+}
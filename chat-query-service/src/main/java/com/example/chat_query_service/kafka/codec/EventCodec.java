@@ -0,0 +1,303 @@
+package com.example.chat_query_service.kafka.codec;
+
+import com.example.chat_query_service.document.ChatRoomView;
+import com.example.chat_query_service.kafka.dto.MessageSentEvent;
+import com.example.chat_query_service.kafka.dto.ReadMarkerEvent;
+import com.example.chat_query_service.kafka.dto.ReadStatusUpdateEvent;
+import com.example.chat_query_service.kafka.dto.RoomCreatedEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Codec nhị phân có version cho các domain event trên Kafka, dùng chung wire format giữa chat-command,
+ * chat-query và websocket (mỗi service giữ bản sao của codec cho các DTO của mình).
+ *
+ * <pre>
+ * [MAGIC 0xCE][VERSION][TYPE][record]
+ * record = varint bitmask các field khác null, theo sau là các field đó theo thứ tự khai báo
+ * </pre>
+ *
+ * Field mới chỉ được thêm vào cuối record cấp ngoài cùng (bit mới) và kèm tăng VERSION;
+ * reader cũ bỏ qua phần đuôi mà nó không biết. Payload không bắt đầu bằng MAGIC được coi là JSON cũ.
+ *
+ * <p>Lịch sử version: 1 - bản đầu; 2 - RoomCreatedEvent thêm chunkIndex/chunkCount;
+ * 3 - MessageSentEvent thêm roomSeq; 4 - MessageSentEvent thêm persistedAt/publishedAt;
+ * 5 - ReadStatusUpdateEvent thêm unreadCount, room updated thêm unreadCounts.
+ */
+public final class EventCodec {
+
+    public static final byte MAGIC = (byte) 0xCE;
+    public static final byte VERSION = 5;
+
+    static final byte TYPE_MESSAGE_SENT = 1;
+    static final byte TYPE_ROOM_CREATED = 2;
+    static final byte TYPE_READ_MARKER = 3;
+    static final byte TYPE_READ_STATUS_UPDATE = 4;
+    static final byte TYPE_ROOM_UPDATED = 5;
+
+    private static final int HEADER_LENGTH = 3;
+
+    private EventCodec() {
+    }
+
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length >= HEADER_LENGTH && data[0] == MAGIC;
+    }
+
+    public static byte[] encode(Object event) {
+        BinaryEventWriter out = new BinaryEventWriter(128);
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION);
+        if (event instanceof MessageSentEvent e) {
+            out.writeByte(TYPE_MESSAGE_SENT);
+            writeMessageSent(out, e);
+        } else if (event instanceof RoomCreatedEvent e) {
+            out.writeByte(TYPE_ROOM_CREATED);
+            writeRoomCreated(out, e);
+        } else if (event instanceof ReadMarkerEvent e) {
+            out.writeByte(TYPE_READ_MARKER);
+            writeReadMarker(out, e);
+        } else if (event instanceof ReadStatusUpdateEvent e) {
+            out.writeByte(TYPE_READ_STATUS_UPDATE);
+            writeReadStatusUpdate(out, e);
+        } else if (event instanceof ChatRoomView e) {
+            out.writeByte(TYPE_ROOM_UPDATED);
+            writeRoomUpdated(out, e);
+        } else {
+            throw new IllegalArgumentException("No binary encoding for " + event.getClass().getName());
+        }
+        return out.toByteArray();
+    }
+
+    public static Object decode(byte[] data) {
+        if (!isBinary(data)) {
+            throw new IllegalArgumentException("Payload is not a binary-encoded event");
+        }
+        BinaryEventReader in = new BinaryEventReader(data, HEADER_LENGTH);
+        byte type = data[2];
+        return switch (type) {
+            case TYPE_MESSAGE_SENT -> readMessageSent(in);
+            case TYPE_ROOM_CREATED -> readRoomCreated(in);
+            case TYPE_READ_MARKER -> readReadMarker(in);
+            case TYPE_READ_STATUS_UPDATE -> readReadStatusUpdate(in);
+            case TYPE_ROOM_UPDATED -> readRoomUpdated(in);
+            default -> throw new IllegalArgumentException("Unknown event type tag " + type + " (version " + data[1] + ")");
+        };
+    }
+
+    // --- MessageSentEvent ---
+
+    private static void writeMessageSent(BinaryEventWriter out, MessageSentEvent e) {
+        out.writeVarInt(bit(0, e.getMessageId()) | bit(1, e.getRoomId()) | bit(2, e.getSenderId())
+            | bit(3, e.getSenderFullName()) | bit(4, e.getContent()) | bit(5, e.getSentAt()) | bit(6, e.getRoomSeq())
+            | bit(7, e.getPersistedAt()) | bit(8, e.getPublishedAt()));
+        if (e.getMessageId() != null) out.writeVarLong(e.getMessageId());
+        if (e.getRoomId() != null) out.writeVarLong(e.getRoomId());
+        if (e.getSenderId() != null) out.writeVarLong(e.getSenderId());
+        if (e.getSenderFullName() != null) out.writeString(e.getSenderFullName());
+        if (e.getContent() != null) out.writeString(e.getContent());
+        if (e.getSentAt() != null) out.writeInstant(e.getSentAt());
+        if (e.getRoomSeq() != null) out.writeVarLong(e.getRoomSeq());
+        if (e.getPersistedAt() != null) out.writeInstant(e.getPersistedAt());
+        if (e.getPublishedAt() != null) out.writeInstant(e.getPublishedAt());
+    }
+
+    private static MessageSentEvent readMessageSent(BinaryEventReader in) {
+        int mask = in.readVarInt();
+        MessageSentEvent e = new MessageSentEvent();
+        if (has(mask, 0)) e.setMessageId(in.readVarLong());
+        if (has(mask, 1)) e.setRoomId(in.readVarLong());
+        if (has(mask, 2)) e.setSenderId(in.readVarLong());
+        if (has(mask, 3)) e.setSenderFullName(in.readString());
+        if (has(mask, 4)) e.setContent(in.readString());
+        if (has(mask, 5)) e.setSentAt(in.readInstant());
+        if (has(mask, 6)) e.setRoomSeq(in.readVarLong());
+        if (has(mask, 7)) e.setPersistedAt(in.readInstant());
+        if (has(mask, 8)) e.setPublishedAt(in.readInstant());
+        return e;
+    }
+
+    // --- RoomCreatedEvent ---
+
+    private static void writeRoomCreated(BinaryEventWriter out, RoomCreatedEvent e) {
+        out.writeVarInt(bit(0, e.getRoomId()) | bit(1, e.getRoomName()) | bit(2, e.getCreatedBy())
+            | bit(3, e.getCreatedAt()) | bit(4, e.getParticipants()) | bit(5, e.getChunkIndex()) | bit(6, e.getChunkCount()));
+        if (e.getRoomId() != null) out.writeVarLong(e.getRoomId());
+        if (e.getRoomName() != null) out.writeString(e.getRoomName());
+        if (e.getCreatedBy() != null) out.writeVarLong(e.getCreatedBy());
+        if (e.getCreatedAt() != null) out.writeInstant(e.getCreatedAt());
+        if (e.getParticipants() != null) {
+            out.writeVarInt(e.getParticipants().size());
+            for (RoomCreatedEvent.ParticipantDTO p : e.getParticipants()) {
+                out.writeVarInt(bit(0, p.getId()) | bit(1, p.getFullName()) | bit(2, p.getJoinedAt()));
+                if (p.getId() != null) out.writeVarLong(p.getId());
+                if (p.getFullName() != null) out.writeString(p.getFullName());
+                if (p.getJoinedAt() != null) out.writeInstant(p.getJoinedAt());
+            }
+        }
+        if (e.getChunkIndex() != null) out.writeVarInt(e.getChunkIndex());
+        if (e.getChunkCount() != null) out.writeVarInt(e.getChunkCount());
+    }
+
+    private static RoomCreatedEvent readRoomCreated(BinaryEventReader in) {
+        int mask = in.readVarInt();
+        RoomCreatedEvent e = new RoomCreatedEvent();
+        if (has(mask, 0)) e.setRoomId(in.readVarLong());
+        if (has(mask, 1)) e.setRoomName(in.readString());
+        if (has(mask, 2)) e.setCreatedBy(in.readVarLong());
+        if (has(mask, 3)) e.setCreatedAt(in.readInstant());
+        if (has(mask, 4)) {
+            int count = in.readVarInt();
+            List<RoomCreatedEvent.ParticipantDTO> participants = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int participantMask = in.readVarInt();
+                RoomCreatedEvent.ParticipantDTO p = new RoomCreatedEvent.ParticipantDTO();
+                if (has(participantMask, 0)) p.setId(in.readVarLong());
+                if (has(participantMask, 1)) p.setFullName(in.readString());
+                if (has(participantMask, 2)) p.setJoinedAt(in.readInstant());
+                participants.add(p);
+            }
+            e.setParticipants(participants);
+        }
+        if (has(mask, 5)) e.setChunkIndex(in.readVarInt());
+        if (has(mask, 6)) e.setChunkCount(in.readVarInt());
+        return e;
+    }
+
+    // --- ReadMarkerEvent ---
+
+    private static void writeReadMarker(BinaryEventWriter out, ReadMarkerEvent e) {
+        out.writeVarInt(bit(0, e.getRoomId()) | bit(1, e.getCustomerId()) | bit(2, e.getLastReadMessageId()));
+        if (e.getRoomId() != null) out.writeVarLong(e.getRoomId());
+        if (e.getCustomerId() != null) out.writeVarLong(e.getCustomerId());
+        if (e.getLastReadMessageId() != null) out.writeVarLong(e.getLastReadMessageId());
+    }
+
+    private static ReadMarkerEvent readReadMarker(BinaryEventReader in) {
+        int mask = in.readVarInt();
+        ReadMarkerEvent e = new ReadMarkerEvent();
+        if (has(mask, 0)) e.setRoomId(in.readVarLong());
+        if (has(mask, 1)) e.setCustomerId(in.readVarLong());
+        if (has(mask, 2)) e.setLastReadMessageId(in.readVarLong());
+        return e;
+    }
+
+    // --- ReadStatusUpdateEvent ---
+
+    private static void writeReadStatusUpdate(BinaryEventWriter out, ReadStatusUpdateEvent e) {
+        out.writeVarInt(bit(0, e.getRoomId()) | bit(1, e.getCustomerId()) | bit(2, e.getIsUnread()) | bit(3, e.getUnreadCount()));
+        if (e.getRoomId() != null) out.writeVarLong(e.getRoomId());
+        if (e.getCustomerId() != null) out.writeVarLong(e.getCustomerId());
+        if (e.getIsUnread() != null) out.writeByte(e.getIsUnread() ? 1 : 0);
+        if (e.getUnreadCount() != null) out.writeVarLong(e.getUnreadCount());
+    }
+
+    private static ReadStatusUpdateEvent readReadStatusUpdate(BinaryEventReader in) {
+        int mask = in.readVarInt();
+        ReadStatusUpdateEvent e = new ReadStatusUpdateEvent();
+        if (has(mask, 0)) e.setRoomId(in.readVarLong());
+        if (has(mask, 1)) e.setCustomerId(in.readVarLong());
+        if (has(mask, 2)) e.setIsUnread(in.readByte() != 0);
+        if (has(mask, 3)) e.setUnreadCount(in.readVarLong());
+        return e;
+    }
+
+    // --- Room updated (ChatRoomView) ---
+
+    private static void writeRoomUpdated(BinaryEventWriter out, ChatRoomView e) {
+        // unreadStatus (suy ra từ unreadCounts) vẫn được ghi cho reader trước version 5
+        Map<Long, Boolean> unreadStatus = e.getUnreadStatus();
+        out.writeVarInt(bit(0, e.getRoomId()) | bit(1, e.getRoomName()) | bit(2, e.getParticipantIds())
+            | bit(3, unreadStatus) | bit(4, e.getLastMessage()) | bit(5, e.getCreatedBy())
+            | bit(6, e.getCreatedAt()) | bit(7, e.getUpdatedAt()) | bit(8, e.getUnreadCounts()));
+        if (e.getRoomId() != null) out.writeVarLong(e.getRoomId());
+        if (e.getRoomName() != null) out.writeString(e.getRoomName());
+        if (e.getParticipantIds() != null) {
+            out.writeVarInt(e.getParticipantIds().size());
+            for (Long participantId : e.getParticipantIds()) {
+                out.writeVarLong(participantId);
+            }
+        }
+        if (unreadStatus != null) {
+            out.writeVarInt(unreadStatus.size());
+            for (Map.Entry<Long, Boolean> entry : unreadStatus.entrySet()) {
+                out.writeVarLong(entry.getKey());
+                out.writeByte(Boolean.TRUE.equals(entry.getValue()) ? 1 : 0);
+            }
+        }
+        if (e.getLastMessage() != null) {
+            ChatRoomView.LastMessageInfo m = e.getLastMessage();
+            out.writeVarInt(bit(0, m.getMessageId()) | bit(1, m.getSenderId()) | bit(2, m.getContent()) | bit(3, m.getSentAt()));
+            if (m.getMessageId() != null) out.writeVarLong(m.getMessageId());
+            if (m.getSenderId() != null) out.writeVarLong(m.getSenderId());
+            if (m.getContent() != null) out.writeString(m.getContent());
+            if (m.getSentAt() != null) out.writeInstant(m.getSentAt());
+        }
+        if (e.getCreatedBy() != null) out.writeVarLong(e.getCreatedBy());
+        if (e.getCreatedAt() != null) out.writeInstant(e.getCreatedAt());
+        if (e.getUpdatedAt() != null) out.writeInstant(e.getUpdatedAt());
+        if (e.getUnreadCounts() != null) {
+            out.writeVarInt(e.getUnreadCounts().size());
+            for (Map.Entry<Long, Long> entry : e.getUnreadCounts().entrySet()) {
+                out.writeVarLong(entry.getKey());
+                out.writeVarLong(entry.getValue() != null ? entry.getValue() : 0L);
+            }
+        }
+    }
+
+    private static ChatRoomView readRoomUpdated(BinaryEventReader in) {
+        int mask = in.readVarInt();
+        ChatRoomView e = new ChatRoomView();
+        if (has(mask, 0)) e.setRoomId(in.readVarLong());
+        if (has(mask, 1)) e.setRoomName(in.readString());
+        if (has(mask, 2)) {
+            int count = in.readVarInt();
+            List<Long> participantIds = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                participantIds.add(in.readVarLong());
+            }
+            e.setParticipantIds(participantIds);
+        }
+        if (has(mask, 3)) {
+            // unreadStatus chỉ còn là giá trị suy ra; payload cũ (trước version 5) được quy đổi thành số 0/1
+            int count = in.readVarInt();
+            Map<Long, Long> unreadCounts = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                unreadCounts.put(in.readVarLong(), in.readByte() != 0 ? 1L : 0L);
+            }
+            e.setUnreadCounts(unreadCounts);
+        }
+        if (has(mask, 4)) {
+            int messageMask = in.readVarInt();
+            ChatRoomView.LastMessageInfo m = new ChatRoomView.LastMessageInfo();
+            if (has(messageMask, 0)) m.setMessageId(in.readVarLong());
+            if (has(messageMask, 1)) m.setSenderId(in.readVarLong());
+            if (has(messageMask, 2)) m.setContent(in.readString());
+            if (has(messageMask, 3)) m.setSentAt(in.readInstant());
+            e.setLastMessage(m);
+        }
+        if (has(mask, 5)) e.setCreatedBy(in.readVarLong());
+        if (has(mask, 6)) e.setCreatedAt(in.readInstant());
+        if (has(mask, 7)) e.setUpdatedAt(in.readInstant());
+        if (has(mask, 8)) {
+            int count = in.readVarInt();
+            Map<Long, Long> unreadCounts = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                unreadCounts.put(in.readVarLong(), in.readVarLong());
+            }
+            e.setUnreadCounts(unreadCounts);
+        }
+        return e;
+    }
+
+    private static int bit(int index, Object value) {
+        return value != null ? 1 << index : 0;
+    }
+
+    private static boolean has(int mask, int index) {
+        return (mask & (1 << index)) != 0;
+    }
+}
@@ -15,4 +15,10 @@ public class MessageSentEvent {
     private String senderFullName; 
     private String content;
     private Instant sentAt;
+    private Long roomSeq;
+
+    // Mốc thời gian để đo độ trễ theo từng chặng (do OutboxRelay gán): lúc ghi outbox (cùng transaction với tin nhắn)
+    // và lúc relay gửi lên Kafka
+    private Instant persistedAt;
+    private Instant publishedAt;
 }
\ No newline at end of file
@@ -11,4 +11,5 @@ public class ReadStatusUpdateEvent {
     private Long roomId;
     private Long customerId;
     private Boolean isUnread;
+    private Long unreadCount;
 }
\ No newline at end of file
@@ -4,11 +4,16 @@ import com.example.chat_query_service.document.MessageDocument;
 
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface MessageDocumentRepository extends MongoRepository<MessageDocument, Long> {
     List<MessageDocument> findTop20ByRoomIdOrderByMessageIdDesc(Long roomId);
     List<MessageDocument> findTop20ByRoomIdAndMessageIdLessThanOrderByMessageIdDesc(Long roomId, Long messageId);
+
+    @Query("{ 'roomId': ?0, 'roomSeq': { $gte: ?1, $lte: ?2 } }")
+    List<MessageDocument> findByRoomIdAndRoomSeqRange(Long roomId, Long fromSeq, Long toSeq, Pageable pageable);
 }
\ No newline at end of file
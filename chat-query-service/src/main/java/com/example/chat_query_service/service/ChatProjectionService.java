@@ -1,10 +1,10 @@
 package com.example.chat_query_service.service;
 
 import com.example.chat_query_service.document.ChatRoomView;
-import com.example.chat_query_service.document.ChatRoomView.LastMessageInfo;
 import com.example.chat_query_service.kafka.KafkaProducerService;
 import com.example.chat_query_service.document.MessageDocument;
 import com.example.chat_query_service.document.ReadMarker;
+import com.example.chat_query_service.document.UnreadTotal;
 import com.example.chat_query_service.kafka.dto.MessageSentEvent;
 import com.example.chat_query_service.kafka.dto.ReadMarkerEvent;
 import com.example.chat_query_service.kafka.dto.RoomCreatedEvent;
@@ -12,51 +12,93 @@ import com.example.chat_query_service.repository.ChatRoomViewRepository;
 import com.example.chat_query_service.repository.MessageDocumentRepository;
 import com.example.chat_query_service.repository.ReadMarkerRepository;
 
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import org.bson.Document;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.ReplaceOptions;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
 public class ChatProjectionService {
 
+    /**
+     * Kích thước trang tin nhắn, khớp với các finder findTop20 của MessageDocumentRepository.
+     */
+    private static final int MESSAGE_PAGE_SIZE = 20;
+
+    /**
+     * Xoá field unreadStatus (Map<Long, Boolean>) của document cũ; đã được thay bằng unreadCounts.
+     */
+    private static final AggregationOperation UNSET_LEGACY_UNREAD_STATUS = Aggregation.stage(new Document("$unset", "unreadStatus"));
+
     private final MessageDocumentRepository messageRepository;
     private final ChatRoomViewRepository chatRoomViewRepository;
     private final ReadMarkerRepository readMarkerRepository;
     private final KafkaProducerService kafkaProducerService;
+    private final MongoTemplate mongoTemplate;
+    private final RecentMessageCache recentMessageCache;
 
-    public ChatProjectionService(MessageDocumentRepository messageRepository, ChatRoomViewRepository chatRoomViewRepository, ReadMarkerRepository readMarkerRepository, KafkaProducerService kafkaProducerService) {
+    public ChatProjectionService(MessageDocumentRepository messageRepository, ChatRoomViewRepository chatRoomViewRepository, ReadMarkerRepository readMarkerRepository, KafkaProducerService kafkaProducerService, MongoTemplate mongoTemplate, RecentMessageCache recentMessageCache) {
         this.messageRepository = messageRepository;
         this.chatRoomViewRepository = chatRoomViewRepository;
         this.readMarkerRepository = readMarkerRepository;
         this.kafkaProducerService = kafkaProducerService;
+        this.mongoTemplate = mongoTemplate;
+        this.recentMessageCache = recentMessageCache;
     }
 
     public void handleRoomCreatedEvent(RoomCreatedEvent event) {
         System.out.println("Processing RoomCreatedEvent for Room ID: " + event.getRoomId());
+
+        if (event.getChunkCount() != null && event.getChunkCount() > 1) {
+            handleRoomCreatedChunk(event);
+            return;
+        }
         
         List<Long> participantIds = event.getParticipants().stream()
                 .map(dto -> dto.getId())
                 .collect(Collectors.toList());
 
-        Map<Long, Boolean> unreadStatus = participantIds.stream()
+        Map<Long, Long> unreadCounts = participantIds.stream()
                 .collect(Collectors.toMap(
                     id -> id, 
-                    id -> true 
+                    id -> 0L 
                 ));
 
+        Instant projectedAt = Instant.now();
         ChatRoomView roomView = new ChatRoomView();
         roomView.setRoomId(event.getRoomId());
         roomView.setRoomName(event.getRoomName());
         roomView.setParticipantIds(participantIds);
-        roomView.setUnreadStatus(unreadStatus);
+        roomView.setUnreadCounts(unreadCounts);
         roomView.setCreatedAt(event.getCreatedAt()); 
         roomView.setUpdatedAt(event.getCreatedAt());
+        roomView.setProjectedAt(projectedAt);
+        roomView.setFirstProjectedAt(projectedAt);
         roomView.setCreatedBy(event.getCreatedBy());
         roomView.setLastMessage(null); 
         
@@ -66,83 +108,458 @@ public class ChatProjectionService {
         kafkaProducerService.sendRoomUpdatedEvent(savedRoomView);
     }
 
+    /**
+     * Gộp một phần danh sách participant của room lớn vào ChatRoomView bằng upsert ($addToSet), nên thứ tự
+     * và việc nhận lại chunk không ảnh hưởng kết quả. RoomUpdatedEvent chỉ được phát sau chunk cuối.
+     */
+    private void handleRoomCreatedChunk(RoomCreatedEvent event) {
+        List<Long> participantIds = event.getParticipants().stream()
+                .map(dto -> dto.getId())
+                .collect(Collectors.toList());
+
+        Instant projectedAt = Instant.now();
+        Update update = new Update()
+                .setOnInsert("roomName", event.getRoomName())
+                .setOnInsert("createdBy", event.getCreatedBy())
+                .setOnInsert("createdAt", event.getCreatedAt())
+                .setOnInsert("updatedAt", event.getCreatedAt())
+                .setOnInsert("firstProjectedAt", projectedAt)
+                .max("projectedAt", projectedAt)
+                .addToSet("participantIds").each(participantIds.toArray());
+        for (Long participantId : participantIds) {
+            update.max("unreadCounts." + participantId, 0L);
+        }
+
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(event.getRoomId())), update, ChatRoomView.class);
+        System.out.println("--- Projected Room (ID: " + event.getRoomId() + ") chunk " + (event.getChunkIndex() + 1) + "/" + event.getChunkCount() + " to MongoDB chatRoomViews.");
+
+        if (event.getChunkIndex() == event.getChunkCount() - 1) {
+            chatRoomViewRepository.findById(event.getRoomId()).ifPresent(kafkaProducerService::sendRoomUpdatedEvent);
+        }
+    }
+
+    /**
+     * Lưu tin nhắn (upsert theo messageId) rồi cập nhật ChatRoomView bằng một findAndModify duy nhất, không
+     * đọc-sửa-ghi cả document. lastMessage và updatedAt chỉ được ghi nếu tin mới hơn lastMessage hiện tại; unreadCounts
+     * của các participant khác người gửi (tính trên server từ participantIds) và unreadTotals được tăng cho mọi tin
+     * vừa được insert, kể cả tin đến trễ, còn tin gửi lại (đã có trong messages) không được đếm lần nữa.
+     */
     public void handleMessageSentEvent(MessageSentEvent event) {
         System.out.println("Processing MessageSentEvent for Room ID: " + event.getRoomId());
 
-        Instant sentAt = event.getSentAt();
+        Instant projectedAt = Instant.now();
+        MessageDocument messageDoc = toMessageDocument(event, projectedAt);
+        boolean inserted = mongoTemplate.replace(Query.query(Criteria.where("_id").is(event.getMessageId())), messageDoc, ReplaceOptions.replaceOptions().upsert()).getUpsertedId() != null;
+        recentMessageCache.append(messageDoc);
+
+        Map<Long, Long> newMessagesBySender = inserted ? Collections.singletonMap(event.getSenderId(), 1L) : Collections.emptyMap();
+        ChatRoomView updatedRoomView = mongoTemplate.findAndModify(roomQuery(event.getRoomId()), roomUpdate(event, newMessagesBySender, projectedAt), FindAndModifyOptions.options().returnNew(true), ChatRoomView.class);
+        if (updatedRoomView == null) {
+            System.out.println("--- Projected Message (ID: " + event.getMessageId() + ") to MongoDB messages; ChatRoomView missing.");
+            return;
+        }
+        if (!inserted && !isLastMessage(updatedRoomView, event)) {
+            System.out.println("--- Message (ID: " + event.getMessageId() + ") was already projected; ChatRoomView unchanged.");
+            return;
+        }
+        System.out.println("--- Projected Message (ID: " + event.getMessageId() + ") to MongoDB messages and updated ChatRoomView.");
+
+        Map<Long, Long> totalIncrements = new HashMap<>();
+        addUnreadIncrements(totalIncrements, updatedRoomView, newMessagesBySender);
+        incrementUnreadTotals(totalIncrements);
+
+        kafkaProducerService.sendRoomUpdatedEvent(updatedRoomView);
+    }
+
+    /**
+     * Upsert read marker bằng $max nên marker không bị lùi khi sự kiện đến trễ, tính lại số tin chưa đọc
+     * từ lastReadMessageId, rồi chỉ ghi {@code unreadCounts.<customerId>} của room và bù chênh lệch vào unreadTotals.
+     */
+    public void handleReadMarkerEvent(ReadMarkerEvent event) {
+        System.out.println("Processing ReadMarkerEvent for Room ID: " + event.getRoomId() + ", Customer ID: " + event.getCustomerId());
+
+        Map<Long, Long> totalIncrements = new HashMap<>();
+        Long unreadCount = projectReadMarker(event, totalIncrements);
+        incrementUnreadTotals(totalIncrements);
+
+        if (unreadCount != null) {
+            kafkaProducerService.sendReadStatusUpdatedEvent(
+                event.getRoomId(), 
+                event.getCustomerId(), 
+                unreadCount > 0,
+                unreadCount
+            );
+        }
+    }
+
+    /**
+     * Phiên bản theo lô của {@link #handleMessageSentEvent}: ghi mọi tin nhắn trong một bulkWrite UNORDERED
+     * (upsert theo messageId), cập nhật mỗi room một lần theo tin mới nhất của room trong lô và số tin vừa được
+     * insert của room, rồi phát một RoomUpdatedEvent cho mỗi room thay vì mỗi tin nhắn.
+     */
+    public void handleMessageSentEvents(List<MessageSentEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        System.out.println("Processing " + events.size() + " MessageSentEvents in one batch.");
+
+        Instant projectedAt = Instant.now();
+        BulkOperations messageOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MessageDocument.class);
+        Map<Long, MessageSentEvent> latestByRoom = new LinkedHashMap<>();
+        List<MessageDocument> messageDocs = new ArrayList<>(events.size());
+        for (MessageSentEvent event : events) {
+            MessageDocument messageDoc = toMessageDocument(event, projectedAt);
+            messageDocs.add(messageDoc);
+            messageOps.replaceOne(Query.query(Criteria.where("_id").is(event.getMessageId())), messageDoc, FindAndReplaceOptions.options().upsert());
+            latestByRoom.merge(event.getRoomId(), event, (current, candidate) ->
+                    candidate.getMessageId() > current.getMessageId() ? candidate : current);
+        }
+        BulkWriteResult messageResult = messageOps.execute();
+        // Thứ tự trong lô giữ nguyên thứ tự theo room (cùng partition)
+        messageDocs.forEach(recentMessageCache::append);
+
+        // Chỉ tin vừa được insert mới được đếm vào unreadCounts; index của upsert là vị trí trong lô
+        Map<Long, Map<Long, Long>> newMessagesBySenderByRoom = new HashMap<>();
+        for (BulkWriteUpsert upsert : messageResult.getUpserts()) {
+            MessageSentEvent event = events.get(upsert.getIndex());
+            newMessagesBySenderByRoom.computeIfAbsent(event.getRoomId(), roomId -> new HashMap<>())
+                    .merge(event.getSenderId(), 1L, Long::sum);
+        }
+
+        BulkOperations roomOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ChatRoomView.class);
+        for (MessageSentEvent event : latestByRoom.values()) {
+            Map<Long, Long> newMessagesBySender = newMessagesBySenderByRoom.getOrDefault(event.getRoomId(), Collections.emptyMap());
+            roomOps.updateOne(roomQuery(event.getRoomId()), roomUpdate(event, newMessagesBySender, projectedAt));
+        }
+        roomOps.execute();
+
+        List<ChatRoomView> updatedRooms = mongoTemplate.find(
+                Query.query(Criteria.where("_id").in(latestByRoom.keySet())), ChatRoomView.class);
+        System.out.println("--- Projected " + events.size() + " messages (" + messageResult.getUpserts().size() + " new) to MongoDB messages and updated " + updatedRooms.size() + " ChatRoomViews.");
+
+        Map<Long, Long> totalIncrements = new HashMap<>();
+        List<ChatRoomView> changedRooms = new ArrayList<>(updatedRooms.size());
+        for (ChatRoomView room : updatedRooms) {
+            Map<Long, Long> newMessagesBySender = newMessagesBySenderByRoom.get(room.getRoomId());
+            if (newMessagesBySender != null) {
+                addUnreadIncrements(totalIncrements, room, newMessagesBySender);
+            }
+            // Room không có tin mới và không đổi lastMessage: cả lô của room là sự kiện gửi lại
+            if (newMessagesBySender != null || isLastMessage(room, latestByRoom.get(room.getRoomId()))) {
+                changedRooms.add(room);
+            }
+        }
+        incrementUnreadTotals(totalIncrements);
+
+        changedRooms.forEach(kafkaProducerService::sendRoomUpdatedEvent);
+    }
+
+    /**
+     * Phiên bản theo lô của {@link #handleReadMarkerEvent}: mỗi cặp (room, customer) chỉ giữ marker lớn nhất
+     * trong lô, và cả lô dùng một số round trip cố định thay vì ba cho mỗi marker: một bulkWrite upsert marker ($max),
+     * một find đọc lại marker đã lưu, một find unreadCounts hiện tại của các room, một aggregation đếm tin chưa đọc
+     * của mọi cặp, rồi một bulkWrite cho room và một cho unreadTotals.
+     * unreadCounts được cộng chênh lệch ($inc) thay vì ghi đè nên cộng dồn đúng với các $inc đồng thời của
+     * MessageSentEvent, và unreadTotals luôn nhận đúng chênh lệch đã cộng vào room.
+     */
+    public void handleReadMarkerEvents(List<ReadMarkerEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        System.out.println("Processing " + events.size() + " ReadMarkerEvents in one batch.");
+
+        Map<String, ReadMarkerEvent> latestByMarker = new LinkedHashMap<>();
+        for (ReadMarkerEvent event : events) {
+            latestByMarker.merge(markerKey(event.getRoomId(), event.getCustomerId()), event, (current, candidate) ->
+                    candidate.getLastReadMessageId() > current.getLastReadMessageId() ? candidate : current);
+        }
+
+        BulkOperations markerOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ReadMarker.class);
+        List<Criteria> markerCriteria = new ArrayList<>(latestByMarker.size());
+        Query roomQuery = Query.query(Criteria.where("_id").in(latestByMarker.values().stream().map(ReadMarkerEvent::getRoomId).distinct().toList()));
+        roomQuery.fields().include("participantIds");
+        for (ReadMarkerEvent event : latestByMarker.values()) {
+            markerOps.upsert(readMarkerQuery(event.getRoomId(), event.getCustomerId()), readMarkerUpdate(event));
+            markerCriteria.add(Criteria.where("roomId").is(event.getRoomId()).and("customerId").is(event.getCustomerId()));
+            roomQuery.fields().include("unreadCounts." + event.getCustomerId());
+        }
+        markerOps.execute();
+
+        // Đếm từ marker đã lưu (không phải từ sự kiện, có thể cũ hoặc gửi lại)
+        Map<String, Long> storedMarkers = new HashMap<>();
+        for (ReadMarker marker : mongoTemplate.find(Query.query(new Criteria().orOperator(markerCriteria)), ReadMarker.class)) {
+            storedMarkers.put(markerKey(marker.getRoomId(), marker.getCustomerId()), marker.getLastReadMessageId());
+        }
+
+        Map<Long, ChatRoomView> rooms = new HashMap<>();
+        for (ChatRoomView room : mongoTemplate.find(roomQuery, ChatRoomView.class)) {
+            rooms.put(room.getRoomId(), room);
+        }
+        // Customer không thuộc room thì không được tính
+        Map<String, Long> lastReadByMarker = new LinkedHashMap<>();
+        latestByMarker.forEach((key, event) -> {
+            ChatRoomView room = rooms.get(event.getRoomId());
+            if (room != null && room.getParticipantIds() != null && room.getParticipantIds().contains(event.getCustomerId())) {
+                lastReadByMarker.put(key, storedMarkers.getOrDefault(key, event.getLastReadMessageId()));
+            }
+        });
+        Map<String, Long> counted = countUnread(latestByMarker, lastReadByMarker);
+
+        BulkOperations roomOps = null;
+        Map<Long, Long> totalIncrements = new HashMap<>();
+        Map<ReadMarkerEvent, Long> unreadCounts = new LinkedHashMap<>();
+        for (String key : lastReadByMarker.keySet()) {
+            ReadMarkerEvent event = latestByMarker.get(key);
+            long unreadCount = counted.getOrDefault(key, 0L);
+            long delta = unreadCount - unreadCountOf(rooms.get(event.getRoomId()), event.getCustomerId());
+            if (delta != 0) {
+                if (roomOps == null) {
+                    roomOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ChatRoomView.class);
+                }
+                roomOps.updateOne(Query.query(Criteria.where("_id").is(event.getRoomId()).and("participantIds").is(event.getCustomerId())),
+                        new Update().inc("unreadCounts." + event.getCustomerId(), delta));
+                totalIncrements.merge(event.getCustomerId(), delta, Long::sum);
+            }
+            unreadCounts.put(event, unreadCount);
+        }
+        if (roomOps != null) {
+            roomOps.execute();
+        }
+        incrementUnreadTotals(totalIncrements);
+        System.out.println("--- Projected " + latestByMarker.size() + " Read Markers to MongoDB readMarkers.");
+
+        unreadCounts.forEach((event, unreadCount) ->
+                kafkaProducerService.sendReadStatusUpdatedEvent(event.getRoomId(), event.getCustomerId(), unreadCount > 0, unreadCount));
+    }
+
+    /**
+     * Ghi marker ($max), đếm tin chưa đọc từ marker đã lưu (không phải từ sự kiện, có thể cũ hoặc gửi lại),
+     * ghi unreadCounts của room bằng findAndModify trả về document trước khi cập nhật, và cộng chênh lệch so với
+     * số cũ vào {@code totalIncrements}. Trả về null nếu customer không thuộc room.
+     */
+    private Long projectReadMarker(ReadMarkerEvent event, Map<Long, Long> totalIncrements) {
+        Long roomId = event.getRoomId();
+        Long customerId = event.getCustomerId();
+
+        ReadMarker marker = mongoTemplate.findAndModify(readMarkerQuery(roomId, customerId), readMarkerUpdate(event), FindAndModifyOptions.options().upsert(true).returnNew(true), ReadMarker.class);
+        Long lastReadMessageId = marker != null ? marker.getLastReadMessageId() : event.getLastReadMessageId();
+
+        System.out.println("--- Projected Read Marker for (Room: " + roomId + ", Customer: " + customerId + ") to Message ID " + lastReadMessageId + ".");
 
+        long unreadCount = countUnread(roomId, customerId, lastReadMessageId);
+        // Trả về document trước khi cập nhật để biết số cũ
+        ChatRoomView previous = mongoTemplate.findAndModify(participantQuery(roomId, customerId), unreadCountUpdate(customerId, unreadCount), ChatRoomView.class);
+        if (previous == null) {
+            return null;
+        }
+        totalIncrements.merge(customerId, unreadCount - unreadCountOf(previous, customerId), Long::sum);
+        return unreadCount;
+    }
+
+    /**
+     * Tổng số tin chưa đọc của customer trên mọi room, đọc từ unreadTotals (một document theo customer,
+     * khởi tạo bởi {@link UnreadTotalsBackfill}). Không kẹp về 0: tổng âm nghĩa là bị lệch và cần được thấy.
+     */
+    public long getUnreadTotal(Long customerId) {
+        UnreadTotal unreadTotal = mongoTemplate.findById(customerId, UnreadTotal.class);
+        if (unreadTotal == null || unreadTotal.getTotal() == null) {
+            return 0L;
+        }
+        return unreadTotal.getTotal();
+    }
+
+    private static MessageDocument toMessageDocument(MessageSentEvent event, Instant projectedAt) {
         MessageDocument messageDoc = new MessageDocument();
         messageDoc.setRoomId(event.getRoomId());
         messageDoc.setMessageId(event.getMessageId());
+        messageDoc.setRoomSeq(event.getRoomSeq());
         messageDoc.setSenderId(event.getSenderId());
         messageDoc.setSenderFullName(event.getSenderFullName());
         messageDoc.setContent(event.getContent());
-        messageDoc.setSentAt(sentAt);
-        
-        messageRepository.save(messageDoc);
-        
-        chatRoomViewRepository.findById(event.getRoomId()).ifPresent(roomView -> {
-            LastMessageInfo lastMsg = new LastMessageInfo();
-            lastMsg.setMessageId(event.getMessageId());
-            lastMsg.setSenderId(event.getSenderId());
-            lastMsg.setContent(event.getContent());
-            lastMsg.setSentAt(sentAt);
-
-            if (roomView.getUnreadStatus() != null) {
-                List<Long> participantIds = roomView.getParticipantIds();
-                Map<Long, Boolean> unreadStatus = participantIds.stream()
-                .collect(Collectors.toMap(
-                    id -> id, 
-                    id -> true 
-                ));
-                roomView.setUnreadStatus(unreadStatus);
-            }
-            
-            roomView.setLastMessage(lastMsg);
-            roomView.setUpdatedAt(sentAt);
-            
-            ChatRoomView updatedRoomView = chatRoomViewRepository.save(roomView);
-            System.out.println("--- Projected Message (ID: " + event.getMessageId() + ") to MongoDB messages and updated ChatRoomView.");
-            
-            kafkaProducerService.sendRoomUpdatedEvent(updatedRoomView);
-        });
+        messageDoc.setSentAt(event.getSentAt());
+        messageDoc.setProjectedAt(projectedAt);
+        return messageDoc;
     }
 
-    public void handleReadMarkerEvent(ReadMarkerEvent event) {
-        System.out.println("Processing ReadMarkerEvent for Room ID: " + event.getRoomId() + ", Customer ID: " + event.getCustomerId());
+    private static Query roomQuery(Long roomId) {
+        return Query.query(Criteria.where("_id").is(roomId));
+    }
 
-        Long roomId = event.getRoomId();
-        Long customerId = event.getCustomerId();
-        
-        Optional<ReadMarker> markerOpt = readMarkerRepository.findByRoomIdAndCustomerId(roomId, customerId);
-        
-        ReadMarker marker;
-        if (markerOpt.isPresent()) {
-            marker = markerOpt.get();
-        } else {
-            marker = new ReadMarker();
-            marker.setRoomId(roomId);
-            marker.setCustomerId(customerId);
+    /**
+     * Pipeline cập nhật room: lastMessage và updatedAt chỉ được ghi nếu tin mới hơn lastMessage hiện tại (sự kiện
+     * đến trễ hoặc gửi lại không ghi đè tin mới hơn), projectedAt luôn được đẩy lên (không lùi) để /sync trả tin về,
+     * và unreadCounts chỉ được tăng theo {@code newMessagesBySender} (các tin vừa được insert).
+     */
+    private static AggregationUpdate roomUpdate(MessageSentEvent event, Map<Long, Long> newMessagesBySender, Instant projectedAt) {
+        Document lastMessage = new Document("messageId", event.getMessageId())
+                .append("senderId", event.getSenderId())
+                .append("content", event.getContent())
+                .append("sentAt", toDate(event.getSentAt()));
+        Document newer = new Document("$lt", List.of(new Document("$ifNull", List.of("$lastMessage.messageId", Long.MIN_VALUE)), event.getMessageId()));
+        List<AggregationOperation> stages = new ArrayList<>(3);
+        stages.add(Aggregation.stage(new Document("$set", new Document("lastMessage", new Document("$cond", List.of(newer, new Document("$literal", lastMessage), "$lastMessage")))
+                .append("updatedAt", new Document("$cond", List.of(newer, new Document("$literal", toDate(event.getSentAt())), "$updatedAt")))
+                .append("projectedAt", new Document("$max", List.of("$projectedAt", new Document("$literal", toDate(projectedAt))))))));
+        if (!newMessagesBySender.isEmpty()) {
+            stages.add(bumpUnreadCounts(newMessagesBySender, messageCount(newMessagesBySender)));
         }
+        stages.add(UNSET_LEGACY_UNREAD_STATUS);
+        return AggregationUpdate.from(stages);
+    }
 
-        marker.setLastReadMessageId(event.getLastReadMessageId());
-        
-        readMarkerRepository.save(marker);
-        
-        System.out.println("--- Projected Read Marker for (Room: " + roomId + ", Customer: " + customerId + ") to Message ID " + event.getLastReadMessageId() + ".");
-
-        chatRoomViewRepository.findById(roomId).ifPresent(roomView -> {
-            if (roomView.getUnreadStatus() != null && roomView.getUnreadStatus().containsKey(customerId)) {
-                roomView.getUnreadStatus().put(customerId, false);
-                chatRoomViewRepository.save(roomView);
-
-                kafkaProducerService.sendReadStatusUpdatedEvent(
-                    roomId, 
-                    customerId, 
-                    false
-                );
+    private static boolean isLastMessage(ChatRoomView room, MessageSentEvent event) {
+        return room.getLastMessage() != null && event.getMessageId().equals(room.getLastMessage().getMessageId());
+    }
+
+    /**
+     * Stage pipeline cộng {@code messageCount} trừ số tin do chính participant gửi vào unreadCounts của từng
+     * participant; participant chưa có entry bắt đầu từ 0 (lấy từ participantIds).
+     */
+    private static AggregationOperation bumpUnreadCounts(Map<Long, Long> messagesBySender, long messageCount) {
+        List<Document> ownMessageBranches = new ArrayList<>(messagesBySender.size());
+        messagesBySender.forEach((senderId, count) -> ownMessageBranches.add(
+                new Document("case", new Document("$eq", List.of("$$entry.k", String.valueOf(senderId)))).append("then", count)));
+        Object ownMessages = ownMessageBranches.isEmpty()
+                ? 0L
+                : new Document("$switch", new Document("branches", ownMessageBranches).append("default", 0L));
+
+        Document zeroCounts = new Document("$arrayToObject", new Document("$map", new Document("input", "$participantIds")
+                .append("in", List.of(new Document("$toString", "$$this"), 0L))));
+        Document currentCounts = new Document("$mergeObjects", List.of(zeroCounts, new Document("$ifNull", List.of("$unreadCounts", new Document()))));
+        return Aggregation.stage(new Document("$set", new Document("unreadCounts", new Document("$arrayToObject",
+                new Document("$map", new Document("input", new Document("$objectToArray", currentCounts))
+                        .append("as", "entry")
+                        .append("in", List.of("$$entry.k", new Document("$add", List.of("$$entry.v",
+                                new Document("$subtract", List.of(messageCount, ownMessages))))))))))));
+    }
+
+    private static void addUnreadIncrements(Map<Long, Long> increments, ChatRoomView room, Map<Long, Long> messagesBySender) {
+        if (room.getParticipantIds() == null) {
+            return;
+        }
+        long messageCount = messageCount(messagesBySender);
+        for (Long participantId : room.getParticipantIds()) {
+            long delta = messageCount - messagesBySender.getOrDefault(participantId, 0L);
+            if (delta > 0) {
+                increments.merge(participantId, delta, Long::sum);
+            }
+        }
+    }
+
+    /**
+     * Cộng chênh lệch vào unreadTotals bằng một bulkWrite UNORDERED (upsert $inc), bỏ qua các chênh lệch bằng 0.
+     */
+    private void incrementUnreadTotals(Map<Long, Long> increments) {
+        BulkOperations totalOps = null;
+        for (Map.Entry<Long, Long> increment : increments.entrySet()) {
+            if (increment.getValue() == 0) {
+                continue;
             }
+            if (totalOps == null) {
+                totalOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UnreadTotal.class);
+            }
+            totalOps.upsert(Query.query(Criteria.where("_id").is(increment.getKey())), new Update().inc("total", increment.getValue()));
+        }
+        if (totalOps != null) {
+            totalOps.execute();
+        }
+    }
+
+    /**
+     * Đếm tin nhắn của người khác sau lastReadMessageId. Có thể lệch một tin nếu MessageSentEvent của cùng room
+     * được xử lý đồng thời; lần đọc kế tiếp sẽ tính lại đúng.
+     */
+    private long countUnread(Long roomId, Long customerId, Long lastReadMessageId) {
+        Query query = Query.query(Criteria.where("roomId").is(roomId)
+                .and("messageId").gt(lastReadMessageId != null ? lastReadMessageId : 0L)
+                .and("senderId").ne(customerId));
+        return mongoTemplate.count(query, MessageDocument.class);
+    }
+
+    /**
+     * Phiên bản theo lô của {@link #countUnread(Long, Long, Long)}: một aggregation trên messages cho mọi cặp
+     * (room, customer) trong {@code lastReadByMarker}. Mỗi tin được khớp với danh sách người đọc của room nó thuộc về
+     * ($switch theo roomId), giữ những người đọc có marker nhỏ hơn messageId và không phải người gửi, rồi đếm theo cặp.
+     * Cặp không có tin chưa đọc không có trong kết quả.
+     */
+    private Map<String, Long> countUnread(Map<String, ReadMarkerEvent> events, Map<String, Long> lastReadByMarker) {
+        if (lastReadByMarker.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<Long, List<Document>> readersByRoom = new LinkedHashMap<>();
+        Map<Long, Long> minLastReadByRoom = new HashMap<>();
+        lastReadByMarker.forEach((key, lastRead) -> {
+            ReadMarkerEvent event = events.get(key);
+            long lastReadMessageId = lastRead != null ? lastRead : 0L;
+            readersByRoom.computeIfAbsent(event.getRoomId(), roomId -> new ArrayList<>())
+                    .add(new Document("customerId", event.getCustomerId()).append("lastRead", lastReadMessageId));
+            minLastReadByRoom.merge(event.getRoomId(), lastReadMessageId, Long::min);
         });
+
+        // messageId là _id của MessageDocument
+        List<Document> roomMatches = new ArrayList<>(readersByRoom.size());
+        List<Document> readerBranches = new ArrayList<>(readersByRoom.size());
+        readersByRoom.forEach((roomId, readers) -> {
+            roomMatches.add(new Document("roomId", roomId).append("_id", new Document("$gt", minLastReadByRoom.get(roomId))));
+            readerBranches.add(new Document("case", new Document("$eq", List.of("$roomId", roomId))).append("then", new Document("$literal", readers)));
+        });
+        Document unreadReaders = new Document("$filter", new Document("input", new Document("$switch", new Document("branches", readerBranches).append("default", List.of())))
+                .append("as", "reader")
+                .append("cond", new Document("$and", List.of(
+                        new Document("$gt", List.of("$_id", "$$reader.lastRead")),
+                        new Document("$ne", List.of("$senderId", "$$reader.customerId"))))));
+
+        Map<String, Long> counts = new HashMap<>();
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(MessageDocument.class)).aggregate(List.of(
+                new Document("$match", new Document("$or", roomMatches)),
+                new Document("$project", new Document("roomId", 1).append("readers", unreadReaders)),
+                new Document("$unwind", "$readers"),
+                new Document("$group", new Document("_id", new Document("roomId", "$roomId").append("customerId", "$readers.customerId"))
+                        .append("count", new Document("$sum", 1)))
+        )).forEach(result -> {
+            Document id = result.get("_id", Document.class);
+            counts.put(markerKey(((Number) id.get("roomId")).longValue(), ((Number) id.get("customerId")).longValue()),
+                    ((Number) result.get("count")).longValue());
+        });
+        return counts;
+    }
+
+    private static String markerKey(Long roomId, Long customerId) {
+        return roomId + ":" + customerId;
+    }
+
+    private static long messageCount(Map<Long, Long> messagesBySender) {
+        return messagesBySender.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    private static long unreadCountOf(ChatRoomView room, Long customerId) {
+        if (room.getUnreadCounts() == null) {
+            return 0L;
+        }
+        Long count = room.getUnreadCounts().get(customerId);
+        return count != null ? count : 0L;
+    }
+
+    private static Query readMarkerQuery(Long roomId, Long customerId) {
+        return Query.query(Criteria.where("roomId").is(roomId).and("customerId").is(customerId));
+    }
+
+    private static Update readMarkerUpdate(ReadMarkerEvent event) {
+        return new Update().max("lastReadMessageId", event.getLastReadMessageId());
+    }
+
+    private static Query participantQuery(Long roomId, Long customerId) {
+        Query query = Query.query(Criteria.where("_id").is(roomId).and("participantIds").is(customerId));
+        query.fields().include("unreadCounts." + customerId);
+        return query;
+    }
+
+    private static Update unreadCountUpdate(Long customerId, long unreadCount) {
+        return new Update().set("unreadCounts." + customerId, unreadCount);
+    }
+
+    private static Date toDate(Instant instant) {
+        return instant != null ? Date.from(instant) : null;
     }
 
     public void enforceRoomMembership(Long roomId, Long customerId) {
@@ -162,14 +579,35 @@ public class ChatProjectionService {
         return chatRoomViewRepository.findByParticipantIdsContainingOrderByUpdatedAtDesc(customerId);
     }
 
+    /**
+     * Trang tin mới nhất của room: lấy từ {@link RecentMessageCache} nếu có, nếu không đọc MongoDB và nạp lại cache.
+     */
     public List<MessageDocument> getLatestMessagesByRoomId(Long roomId) {
-        return messageRepository.findTop20ByRoomIdOrderByMessageIdDesc(roomId);
+        List<MessageDocument> cached = recentMessageCache.latest(roomId, MESSAGE_PAGE_SIZE);
+        if (cached != null) {
+            return cached;
+        }
+        List<MessageDocument> messages = messageRepository.findTop20ByRoomIdOrderByMessageIdDesc(roomId);
+        recentMessageCache.seed(roomId, messages, messages.size() < MESSAGE_PAGE_SIZE);
+        return messages;
     }
 
     public List<MessageDocument> getNextMessagesByRoomIdAndIndex(Long roomId, Long indexMessageId) {
+        List<MessageDocument> cached = recentMessageCache.before(roomId, indexMessageId, MESSAGE_PAGE_SIZE);
+        if (cached != null) {
+            return cached;
+        }
         return messageRepository.findTop20ByRoomIdAndMessageIdLessThanOrderByMessageIdDesc(roomId, indexMessageId);
     }
 
+    /**
+     * Lấy tin nhắn theo khoảng roomSeq [fromSeq, toSeq] (tăng dần), tối đa {@code limit} tin; dùng để lấp khoảng trống
+     * khi client phát hiện roomSeq bị nhảy.
+     */
+    public List<MessageDocument> getMessagesByRoomSeqRange(Long roomId, Long fromSeq, Long toSeq, int limit) {
+        return messageRepository.findByRoomIdAndRoomSeqRange(roomId, fromSeq, toSeq, PageRequest.of(0, limit, Sort.by("roomSeq")));
+    }
+
     public List<ReadMarker> getReadMarkersByRoomId(Long roomId) {
         return readMarkerRepository.findByRoomId(roomId);
     }
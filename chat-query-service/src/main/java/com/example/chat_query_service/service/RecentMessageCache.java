@@ -0,0 +1,279 @@
+package com.example.chat_query_service.service;
+
+import com.example.chat_query_service.document.MessageDocument;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Cache trong tiến trình giữ K tin nhắn mới nhất của các room đang hoạt động (ring buffer mỗi room),
+ * được projection ghi trực tiếp để trang đầu và các trang nông của một room không phải truy vấn MongoDB.
+ * Ring chỉ chứa một dãy roomSeq liên tục kết thúc ở tin mới nhất; khi thấy khoảng trống (tin bị bỏ qua hoặc
+ * đến sai thứ tự) ring của room bị bỏ và được nạp lại từ MongoDB ở lần đọc sau.
+ * Các room bị loại theo LRU khi tổng dung lượng ước tính vượt {@code memory-budget}.
+ * Cache chỉ đúng khi instance này projection mọi room (một instance chat-query như docker-compose hiện tại);
+ * vì vậy mặc định tắt và chỉ bật bằng {@code chat.recent-messages.enabled=true} khi chạy một instance.
+ */
+@Service
+public class RecentMessageCache {
+
+    private final boolean enabled;
+    private final int messagesPerRoom;
+    private final Cache<Long, RoomMessageRing> rings;
+    private final Counter latestHits;
+    private final Counter latestMisses;
+    private final Counter indexHits;
+    private final Counter indexMisses;
+
+    public RecentMessageCache(MeterRegistry meterRegistry,
+                              @Value("${chat.recent-messages.enabled}") boolean enabled,
+                              @Value("${chat.recent-messages.per-room}") int messagesPerRoom,
+                              @Value("${chat.recent-messages.memory-budget}") DataSize memoryBudget) {
+        this.enabled = enabled;
+        this.messagesPerRoom = messagesPerRoom;
+        this.rings = Caffeine.newBuilder()
+            .maximumWeight(memoryBudget.toBytes())
+            .weigher((Long roomId, RoomMessageRing ring) -> (int) Math.min(Integer.MAX_VALUE, ring.estimatedBytes()))
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, rings, "recentMessages");
+        Gauge.builder("chat.recent-messages.bytes", rings, cache -> cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L))
+            .description("Estimated memory held by the recent-message cache")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        this.latestHits = requests(meterRegistry, "latest", "hit");
+        this.latestMisses = requests(meterRegistry, "latest", "miss");
+        this.indexHits = requests(meterRegistry, "index", "hit");
+        this.indexMisses = requests(meterRegistry, "index", "miss");
+    }
+
+    /**
+     * Ghi tin nhắn vừa được projection vào ring của room; room chưa có ring sẽ được tạo.
+     */
+    public void append(MessageDocument message) {
+        if (!enabled || message.getRoomId() == null) {
+            return;
+        }
+        // compute để Caffeine tính lại weight của ring sau khi ghi
+        rings.asMap().compute(message.getRoomId(), (roomId, ring) -> {
+            // Ring mới chứa toàn bộ lịch sử room nếu tin đầu tiên ghi vào là roomSeq 1
+            RoomMessageRing target = ring != null ? ring : new RoomMessageRing(messagesPerRoom, true);
+            return target.append(message) ? target : null;
+        });
+    }
+
+    /**
+     * {@code limit} tin mới nhất của room (mới nhất trước), hoặc null nếu ring không đủ dữ liệu để trả lời.
+     */
+    public List<MessageDocument> latest(Long roomId, int limit) {
+        if (!enabled) {
+            return null;
+        }
+        RoomMessageRing ring = rings.getIfPresent(roomId);
+        List<MessageDocument> messages = ring != null ? ring.latest(limit) : null;
+        (messages != null ? latestHits : latestMisses).increment();
+        return messages;
+    }
+
+    /**
+     * {@code limit} tin có messageId nhỏ hơn {@code indexMessageId} (mới nhất trước), hoặc null nếu trang đó
+     * nằm ngoài ring.
+     */
+    public List<MessageDocument> before(Long roomId, Long indexMessageId, int limit) {
+        if (!enabled) {
+            return null;
+        }
+        RoomMessageRing ring = rings.getIfPresent(roomId);
+        List<MessageDocument> messages = ring != null ? ring.before(indexMessageId, limit) : null;
+        (messages != null ? indexHits : indexMisses).increment();
+        return messages;
+    }
+
+    /**
+     * Nạp lại ring từ trang mới nhất đọc được trong MongoDB (mới nhất trước), gộp với các tin projection
+     * đã ghi vào ring trong lúc đọc. {@code reachesStart}: trang đã chứa toàn bộ lịch sử của room.
+     */
+    public void seed(Long roomId, List<MessageDocument> newestFirst, boolean reachesStart) {
+        if (!enabled) {
+            return;
+        }
+        rings.asMap().compute(roomId, (id, ring) -> {
+            List<MessageDocument> merged = new ArrayList<>(newestFirst);
+            if (ring != null) {
+                merged.addAll(ring.latest(messagesPerRoom, true));
+            }
+            return RoomMessageRing.of(messagesPerRoom, merged, reachesStart);
+        });
+    }
+
+    public void invalidate(Long roomId) {
+        rings.invalidate(roomId);
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String page, String result) {
+        return Counter.builder("chat.recent-messages.requests")
+            .description("Message page requests served from (hit) or past (miss) the recent-message cache")
+            .tag("page", page)
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Ring buffer cố định {@code capacity} phần tử, thứ tự roomSeq tăng dần, đồng bộ bằng monitor của chính nó.
+     */
+    static final class RoomMessageRing {
+
+        private static final long RING_OVERHEAD_BYTES = 64;
+        private static final long MESSAGE_OVERHEAD_BYTES = 160;
+
+        private final MessageDocument[] slots;
+        private int head;
+        private int size;
+        private long bytes;
+        private boolean reachesStart;
+
+        RoomMessageRing(int capacity, boolean reachesStart) {
+            this.slots = new MessageDocument[capacity];
+            this.reachesStart = reachesStart;
+            this.bytes = RING_OVERHEAD_BYTES + 4L * capacity;
+        }
+
+        /**
+         * Dựng ring từ danh sách tin bất kỳ thứ tự: giữ dãy roomSeq liên tục dài nhất kết thúc ở tin mới nhất.
+         */
+        static RoomMessageRing of(int capacity, List<MessageDocument> messages, boolean reachesStart) {
+            List<MessageDocument> sorted = new ArrayList<>(messages.size());
+            for (MessageDocument message : messages) {
+                if (message.getRoomSeq() == null) {
+                    return null;
+                }
+                sorted.add(message);
+            }
+            sorted.sort(Comparator.comparing(MessageDocument::getRoomSeq).reversed());
+
+            List<MessageDocument> run = new ArrayList<>();
+            for (MessageDocument message : sorted) {
+                if (run.isEmpty()) {
+                    run.add(message);
+                    continue;
+                }
+                long previousSeq = run.get(run.size() - 1).getRoomSeq();
+                if (message.getRoomSeq() == previousSeq) {
+                    continue;
+                }
+                if (message.getRoomSeq() != previousSeq - 1) {
+                    // Khoảng trống: phần cũ hơn không dùng được, và ring không còn chứa tới đầu room
+                    reachesStart = false;
+                    break;
+                }
+                run.add(message);
+            }
+
+            RoomMessageRing ring = new RoomMessageRing(capacity, reachesStart && run.size() <= capacity);
+            Collections.reverse(run);
+            for (MessageDocument message : run) {
+                ring.push(message);
+            }
+            return ring;
+        }
+
+        /**
+         * Trả về false nếu tin tạo khoảng trống trong dãy roomSeq (ring cần được bỏ).
+         */
+        synchronized boolean append(MessageDocument message) {
+            Long seq = message.getRoomSeq();
+            if (seq == null) {
+                return false;
+            }
+            if (size == 0) {
+                reachesStart = reachesStart && seq == 1;
+                push(message);
+                return true;
+            }
+            long newestSeq = slots[index(size - 1)].getRoomSeq();
+            if (seq <= newestSeq) {
+                // Sự kiện gửi lại
+                return true;
+            }
+            if (seq != newestSeq + 1) {
+                return false;
+            }
+            push(message);
+            return true;
+        }
+
+        synchronized List<MessageDocument> latest(int limit) {
+            return latest(limit, false);
+        }
+
+        synchronized List<MessageDocument> latest(int limit, boolean partial) {
+            if (size < limit && !reachesStart && !partial) {
+                return null;
+            }
+            int count = Math.min(limit, size);
+            List<MessageDocument> messages = new ArrayList<>(count);
+            for (int i = size - 1; i >= size - count; i--) {
+                messages.add(slots[index(i)]);
+            }
+            return messages;
+        }
+
+        synchronized List<MessageDocument> before(Long indexMessageId, int limit) {
+            if (size == 0 || indexMessageId == null) {
+                return null;
+            }
+            // Tin cũ nhất trong ring phải cũ hơn index, nếu không trang cần đọc nằm trước ring
+            if (slots[index(0)].getMessageId() >= indexMessageId && !reachesStart) {
+                return null;
+            }
+            List<MessageDocument> messages = new ArrayList<>(limit);
+            for (int i = size - 1; i >= 0 && messages.size() < limit; i--) {
+                MessageDocument message = slots[index(i)];
+                if (message.getMessageId() < indexMessageId) {
+                    messages.add(message);
+                }
+            }
+            return messages.size() == limit || reachesStart ? messages : null;
+        }
+
+        synchronized long estimatedBytes() {
+            return bytes;
+        }
+
+        private void push(MessageDocument message) {
+            if (size == slots.length) {
+                bytes -= estimateBytes(slots[head]);
+                slots[head] = message;
+                head = (head + 1) % slots.length;
+                reachesStart = false;
+            } else {
+                slots[index(size)] = message;
+                size++;
+            }
+            bytes += estimateBytes(message);
+        }
+
+        private int index(int offset) {
+            return (head + offset) % slots.length;
+        }
+
+        private static long estimateBytes(MessageDocument message) {
+            long bytes = MESSAGE_OVERHEAD_BYTES;
+            if (message.getContent() != null) bytes += 2L * message.getContent().length();
+            if (message.getSenderFullName() != null) bytes += 2L * message.getSenderFullName().length();
+            return bytes;
+        }
+    }
+}
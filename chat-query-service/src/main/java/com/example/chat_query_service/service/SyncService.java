@@ -0,0 +1,145 @@
+package com.example.chat_query_service.service;
+
+import com.example.chat_query_service.document.ChatRoomView;
+import com.example.chat_query_service.document.MessageDocument;
+import com.example.chat_query_service.dto.SyncResponse;
+import com.example.chat_query_service.dto.SyncResponse.RoomDelta;
+import lombok.Data;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Delta sync cho client kết nối lại: một truy vấn lấy các room có projectedAt >= cursor, một aggregation lấy
+ * tin nhắn mới của tất cả các room đó (tối đa {@code messagesPerRoom} mỗi room), thay cho N+1 truy vấn.
+ * Cursor là thời điểm chat-query ghi dữ liệu (projectedAt), không phải sentAt/createdAt phía producer, nên sự kiện
+ * được projection trễ vẫn lọt vào lần sync sau. Cursor trả về không vượt quá {@code now - cursor-lag}, để các ghi
+ * đang diễn ra với projectedAt cũ hơn không bị bỏ qua; room và tin trong khoảng đó có thể được trả lại,
+ * client khử trùng theo messageId.
+ */
+@Service
+public class SyncService {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${chat.sync.messages-per-room}")
+    private int messagesPerRoom;
+
+    @Value("${chat.sync.max-rooms}")
+    private int maxRooms;
+
+    @Value("${chat.sync.cursor-lag}")
+    private Duration cursorLag;
+
+    public SyncService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Không có cursor (sync lần đầu): chỉ trả {@code max-rooms} room mới nhất, {@code hasMoreRooms} báo còn room cũ hơn
+     * (client tải qua /rooms). Có cursor: trả mọi room thay đổi từ cursor.
+     */
+    public SyncResponse sync(Long customerId, Instant cursor) {
+        // Lấy mốc trước khi đọc: mọi ghi có projectedAt trước mốc này đã hoàn tất khi truy vấn chạy
+        Instant horizon = Instant.now().minus(cursorLag);
+
+        Criteria roomCriteria = Criteria.where("participantIds").is(customerId);
+        if (cursor != null) {
+            roomCriteria = roomCriteria.and("projectedAt").gte(cursor);
+        }
+        Query roomQuery = Query.query(roomCriteria).with(Sort.by(Sort.Direction.DESC, "projectedAt"));
+        if (cursor == null) {
+            roomQuery.limit(maxRooms + 1);
+        }
+        List<ChatRoomView> rooms = mongoTemplate.find(roomQuery, ChatRoomView.class);
+
+        boolean hasMoreRooms = cursor == null && rooms.size() > maxRooms;
+        if (hasMoreRooms) {
+            rooms = rooms.subList(0, maxRooms);
+        }
+
+        if (rooms.isEmpty()) {
+            return new SyncResponse(Collections.emptyList(), cursor != null ? cursor : horizon, false);
+        }
+
+        List<Long> roomIds = new ArrayList<>(rooms.size());
+        List<Long> newRoomIds = new ArrayList<>();
+        for (ChatRoomView room : rooms) {
+            roomIds.add(room.getRoomId());
+            if (cursor != null && room.getFirstProjectedAt() != null && !room.getFirstProjectedAt().isBefore(cursor)) {
+                newRoomIds.add(room.getRoomId());
+            }
+        }
+        Map<Long, List<MessageDocument>> messagesByRoom = findNewMessages(roomIds, newRoomIds, cursor);
+
+        List<RoomDelta> deltas = new ArrayList<>(rooms.size());
+        Instant nextCursor = cursor;
+        for (ChatRoomView room : rooms) {
+            List<MessageDocument> messages = messagesByRoom.getOrDefault(room.getRoomId(), Collections.emptyList());
+            boolean hasMore = messages.size() > messagesPerRoom;
+            if (hasMore) {
+                messages = messages.subList(0, messagesPerRoom);
+            }
+            deltas.add(new RoomDelta(room, messages, hasMore));
+
+            if (room.getProjectedAt() != null && (nextCursor == null || room.getProjectedAt().isAfter(nextCursor))) {
+                nextCursor = room.getProjectedAt();
+            }
+        }
+        if (nextCursor == null || nextCursor.isAfter(horizon)) {
+            nextCursor = cursor != null && cursor.isAfter(horizon) ? cursor : horizon;
+        }
+
+        System.out.println("--- Sync for Customer ID " + customerId + " since " + cursor + ": " + deltas.size() + " room(s) changed" + (hasMoreRooms ? ", older rooms omitted." : "."));
+        return new SyncResponse(deltas, nextCursor, hasMoreRooms);
+    }
+
+    /**
+     * Lấy tối đa messagesPerRoom + 1 tin mới nhất của mỗi room (phần tử dư dùng để biết còn tin hay không) bằng $topN.
+     * Với room được projection lần đầu sau cursor ({@code newRoomIds}), tin nhắn không bị lọc theo cursor: tin có thể
+     * đã được ghi trước khi room tồn tại.
+     */
+    private Map<Long, List<MessageDocument>> findNewMessages(List<Long> roomIds, List<Long> newRoomIds, Instant cursor) {
+        Criteria messageCriteria = Criteria.where("roomId").in(roomIds);
+        if (cursor != null) {
+            messageCriteria = newRoomIds.isEmpty()
+                ? messageCriteria.and("projectedAt").gte(cursor)
+                : messageCriteria.orOperator(Criteria.where("projectedAt").gte(cursor), Criteria.where("roomId").in(newRoomIds));
+        }
+
+        AggregationOperation topMessagesPerRoom = context -> new Document("$group", new Document("_id", "$roomId")
+            .append("messages", new Document("$topN", new Document("n", messagesPerRoom + 1)
+                .append("sortBy", new Document("_id", -1))
+                .append("output", "$$ROOT"))));
+
+        Aggregation aggregation = Aggregation.newAggregation(
+            Aggregation.match(messageCriteria),
+            topMessagesPerRoom
+        );
+
+        return mongoTemplate.aggregate(aggregation, MessageDocument.class, RoomMessages.class)
+            .getMappedResults()
+            .stream()
+            .collect(Collectors.toMap(RoomMessages::getId, RoomMessages::getMessages, (a, b) -> a));
+    }
+
+    @Data
+    public static class RoomMessages {
+        private Long id;
+        private List<MessageDocument> messages;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.chat_query_service.service;
+
+import org.bson.Document;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Tính lại unreadTotals một lần từ unreadCounts (hoặc unreadStatus cũ, quy thành 0/1) của mọi ChatRoomView.
+ * unreadTotals chỉ được cộng/trừ theo chênh lệch nên phải bắt đầu từ tổng đúng; chạy trước khi listener Kafka
+ * khởi động (afterSingletonsInstantiated) và ghi dấu vào projectionMigrations để không chạy lại.
+ */
+@Component
+public class UnreadTotalsBackfill implements SmartInitializingSingleton {
+
+    private static final String MIGRATIONS_COLLECTION = "projectionMigrations";
+    private static final String MIGRATION_ID = "unread-totals-backfill";
+
+    private final MongoTemplate mongoTemplate;
+
+    public UnreadTotalsBackfill(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        Document done = mongoTemplate.getCollection(MIGRATIONS_COLLECTION).find(new Document("_id", MIGRATION_ID)).first();
+        if (done != null) {
+            return;
+        }
+
+        Document legacyCounts = new Document("$arrayToObject", new Document("$map", new Document("input",
+                new Document("$objectToArray", new Document("$ifNull", List.of("$unreadStatus", new Document()))))
+                .append("in", List.of("$$this.k", new Document("$cond", List.of("$$this.v", 1L, 0L))))));
+        // $out thay toàn bộ unreadTotals, nên chạy lại sau khi bị ngắt giữa chừng vẫn cho kết quả đúng
+        mongoTemplate.getCollection("chatRoomViews").aggregate(List.of(
+                new Document("$project", new Document("counts", new Document("$objectToArray",
+                        new Document("$ifNull", List.of("$unreadCounts", legacyCounts))))),
+                new Document("$unwind", "$counts"),
+                new Document("$group", new Document("_id", new Document("$toLong", "$counts.k"))
+                        .append("total", new Document("$sum", new Document("$toLong", "$counts.v")))),
+                new Document("$out", "unreadTotals")
+        )).toCollection();
+
+        mongoTemplate.getCollection(MIGRATIONS_COLLECTION).insertOne(new Document("_id", MIGRATION_ID).append("completedAt", Instant.now()));
+        System.out.println("--- Đã tính lại unreadTotals từ unreadCounts của các ChatRoomView.");
+    }
+}
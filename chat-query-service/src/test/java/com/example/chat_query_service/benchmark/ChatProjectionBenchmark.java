@@ -0,0 +1,176 @@
+package com.example.chat_query_service.benchmark;
+
+import com.example.chat_query_service.document.ChatRoomView;
+import com.example.chat_query_service.document.MessageDocument;
+import com.example.chat_query_service.document.ReadMarker;
+import com.example.chat_query_service.kafka.KafkaProducerService;
+import com.example.chat_query_service.kafka.dto.MessageSentEvent;
+import com.example.chat_query_service.kafka.dto.ReadMarkerEvent;
+import com.example.chat_query_service.repository.ChatRoomViewRepository;
+import com.example.chat_query_service.repository.MessageDocumentRepository;
+import com.example.chat_query_service.repository.ReadMarkerRepository;
+import com.example.chat_query_service.service.ChatProjectionService;
+import com.example.chat_query_service.service.RecentMessageCache;
+import com.mongodb.client.result.UpdateResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonInt64;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.ReplaceOptions;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+import org.springframework.util.unit.DataSize;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Đo ChatProjectionService.handleMessageSentEvent và handleReadMarkerEvent với repository trong bộ nhớ,
+ * MongoTemplate giả (Mockito, trả về room có sẵn, mọi tin đều là tin mới; count và bulkWrite không làm gì) và producer Kafka không gửi gì,
+ * theo số participant của room.
+ * Vì cập nhật ChatRoomView chạy trên MongoDB, số đo ở đây là chi phí dựng update phía service.
+ * getLatestMessagesByRoomId được đo khi trang mới nhất đã nằm trong RecentMessageCache (đường cache hit).
+ * System.out bị chuyển vào null stream trong lúc đo (chi phí tạo chuỗi log vẫn được tính).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatProjectionBenchmark {
+
+    private static final long ROOM_ID = 987_654_321L;
+
+    @Param({"2", "50", "500"})
+    public int participants;
+
+    private ChatProjectionService projectionService;
+    private DiscardingKafkaProducerService kafkaProducerService;
+    private PrintStream originalOut;
+    private long nextMessageId;
+    private long nextReader;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryRepository rooms = InMemoryRepository.keyedBy(view -> ((ChatRoomView) view).getRoomId());
+        // Chỉ giữ bản ghi cuối để bộ nhớ không tăng theo số lần gọi
+        InMemoryRepository messages = InMemoryRepository.keyedBy(message -> MessageDocument.class);
+        InMemoryRepository markers = InMemoryRepository.keyedBy(marker -> ((ReadMarker) marker).getId());
+        ChatRoomView room = roomView(participants);
+        rooms.as(ChatRoomViewRepository.class).save(room);
+
+        // stubOnly: không ghi lại invocation, tránh bộ nhớ tăng theo số lần gọi
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class, withSettings().stubOnly());
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class), eq(ChatRoomView.class)))
+            .thenReturn(room);
+        when(mongoTemplate.findAndModify(any(Query.class), any(UpdateDefinition.class), eq(ChatRoomView.class)))
+            .thenReturn(room);
+        when(mongoTemplate.replace(any(Query.class), any(MessageDocument.class), any(ReplaceOptions.class)))
+            .thenReturn(UpdateResult.acknowledged(0L, 0L, new BsonInt64(1L)));
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), any(Class.class)))
+            .thenReturn(mock(BulkOperations.class, withSettings().stubOnly()));
+
+        kafkaProducerService = new DiscardingKafkaProducerService();
+        projectionService = new ChatProjectionService(
+            messages.as(MessageDocumentRepository.class),
+            rooms.as(ChatRoomViewRepository.class),
+            markers.as(ReadMarkerRepository.class),
+            kafkaProducerService,
+            mongoTemplate,
+            new RecentMessageCache(new SimpleMeterRegistry(), true, 100, DataSize.ofMegabytes(16))
+        );
+
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        // Đủ tin để getLatestMessagesByRoomId được trả từ RecentMessageCache
+        for (int i = 0; i < 100; i++) {
+            handleMessageSentEvent();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(originalOut);
+        System.out.println("Room updates published: " + kafkaProducerService.published);
+    }
+
+    @Benchmark
+    public void handleMessageSentEvent() {
+        long messageId = ++nextMessageId;
+        projectionService.handleMessageSentEvent(new MessageSentEvent(
+            messageId,
+            ROOM_ID,
+            1L,
+            "Nguyễn Văn A",
+            "Xin chào, đây là một tin nhắn thử nghiệm có độ dài bình thường.",
+            Instant.now(),
+            messageId,
+            Instant.now(),
+            Instant.now()
+        ));
+    }
+
+    @Benchmark
+    public List<MessageDocument> getLatestMessagesByRoomId() {
+        return projectionService.getLatestMessagesByRoomId(ROOM_ID);
+    }
+
+    @Benchmark
+    public void handleReadMarkerEvent() {
+        long customerId = nextReader++ % participants + 1;
+        projectionService.handleReadMarkerEvent(new ReadMarkerEvent(ROOM_ID, customerId, ++nextMessageId));
+    }
+
+    private static ChatRoomView roomView(int participants) {
+        ChatRoomView view = new ChatRoomView();
+        view.setRoomId(ROOM_ID);
+        view.setRoomName("Benchmark room");
+        List<Long> participantIds = new ArrayList<>();
+        Map<Long, Long> unreadCounts = new HashMap<>();
+        for (long id = 1; id <= participants; id++) {
+            participantIds.add(id);
+            unreadCounts.put(id, 3L);
+        }
+        view.setParticipantIds(participantIds);
+        view.setUnreadCounts(unreadCounts);
+        view.setCreatedBy(1L);
+        view.setCreatedAt(Instant.now());
+        view.setUpdatedAt(Instant.now());
+        return view;
+    }
+
+    private static final class DiscardingKafkaProducerService extends KafkaProducerService {
+
+        private long published;
+
+        private DiscardingKafkaProducerService() {
+            super(null);
+        }
+
+        @Override
+        public void sendRoomUpdatedEvent(ChatRoomView roomView) {
+            published++;
+        }
+
+        @Override
+        public void sendReadStatusUpdatedEvent(Long roomId, Long customerId, Boolean isUnread, Long unreadCount) {
+            published++;
+        }
+    }
+}
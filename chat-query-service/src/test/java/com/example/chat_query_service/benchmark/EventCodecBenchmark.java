@@ -0,0 +1,137 @@
+package com.example.chat_query_service.benchmark;
+
+import com.example.chat_query_service.document.ChatRoomView;
+import com.example.chat_query_service.kafka.codec.BinaryEventDeserializer;
+import com.example.chat_query_service.kafka.codec.BinaryEventSerializer;
+import com.example.chat_query_service.kafka.dto.MessageSentEvent;
+import com.example.chat_query_service.kafka.dto.ReadMarkerEvent;
+import com.example.chat_query_service.kafka.dto.RoomCreatedEvent;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * So sánh JsonSerializer/JsonDeserializer (có type header, như trước đây) với codec nhị phân
+ * cho từng loại sự kiện Kafka. Kích thước payload được in ra khi setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventCodecBenchmark {
+
+    private static final String TOPIC = "benchmark";
+
+    @Param({"MESSAGE_SENT", "ROOM_CREATED", "READ_MARKER", "ROOM_UPDATED"})
+    public String eventType;
+
+    private Object event;
+
+    private JsonSerializer<Object> jsonSerializer;
+    private JsonDeserializer<Object> jsonDeserializer;
+    private BinaryEventSerializer binarySerializer;
+    private BinaryEventDeserializer binaryDeserializer;
+
+    private byte[] jsonPayload;
+    private Headers jsonHeaders;
+    private byte[] binaryPayload;
+
+    @Setup
+    public void setUp() {
+        event = switch (eventType) {
+            case "MESSAGE_SENT" -> messageSentEvent();
+            case "ROOM_CREATED" -> roomCreatedEvent(50);
+            case "READ_MARKER" -> new ReadMarkerEvent(987_654_321L, 42L, 123_456_789_012L);
+            default -> roomView(50);
+        };
+
+        jsonSerializer = new JsonSerializer<>();
+        jsonDeserializer = new JsonDeserializer<>();
+        jsonDeserializer.addTrustedPackages("*");
+        binarySerializer = new BinaryEventSerializer();
+        binaryDeserializer = new BinaryEventDeserializer();
+
+        jsonHeaders = new RecordHeaders();
+        jsonPayload = jsonSerializer.serialize(TOPIC, jsonHeaders, event);
+        binaryPayload = binarySerializer.serialize(TOPIC, event);
+
+        System.out.println(eventType + " payload: json=" + jsonPayload.length + " bytes, binary=" + binaryPayload.length + " bytes");
+    }
+
+    @Benchmark
+    public byte[] jsonEncode() {
+        return jsonSerializer.serialize(TOPIC, new RecordHeaders(), event);
+    }
+
+    @Benchmark
+    public Object jsonDecode() {
+        return jsonDeserializer.deserialize(TOPIC, jsonHeaders, jsonPayload);
+    }
+
+    @Benchmark
+    public byte[] binaryEncode() {
+        return binarySerializer.serialize(TOPIC, event);
+    }
+
+    @Benchmark
+    public Object binaryDecode() {
+        return binaryDeserializer.deserialize(TOPIC, binaryPayload);
+    }
+
+    private static MessageSentEvent messageSentEvent() {
+        return new MessageSentEvent(
+            123_456_789_012L,
+            987_654_321L,
+            42L,
+            "Nguyễn Văn A",
+            "Xin chào, đây là một tin nhắn thử nghiệm có độ dài bình thường.",
+            Instant.now(),
+            1_234L,
+            Instant.now(),
+            Instant.now()
+        );
+    }
+
+    private static RoomCreatedEvent roomCreatedEvent(int participants) {
+        List<RoomCreatedEvent.ParticipantDTO> participantDtos = new ArrayList<>();
+        for (long id = 1; id <= participants; id++) {
+            participantDtos.add(new RoomCreatedEvent.ParticipantDTO(id, "Người dùng " + id, Instant.now()));
+        }
+        return new RoomCreatedEvent(987_654_321L, "Benchmark room", 1L, Instant.now(), participantDtos, 0, 1);
+    }
+
+    private static ChatRoomView roomView(int participants) {
+        ChatRoomView view = new ChatRoomView();
+        view.setRoomId(987_654_321L);
+        view.setRoomName("Benchmark room");
+        List<Long> participantIds = new ArrayList<>();
+        Map<Long, Long> unreadCounts = new HashMap<>();
+        for (long id = 1; id <= participants; id++) {
+            participantIds.add(id);
+            unreadCounts.put(id, id % 2 == 0 ? id % 7 : 0L);
+        }
+        view.setParticipantIds(participantIds);
+        view.setUnreadCounts(unreadCounts);
+        ChatRoomView.LastMessageInfo lastMessage = new ChatRoomView.LastMessageInfo();
+        lastMessage.setMessageId(123_456_789_012L);
+        lastMessage.setSenderId(42L);
+        lastMessage.setContent("Xin chào, đây là một tin nhắn thử nghiệm có độ dài bình thường.");
+        lastMessage.setSentAt(Instant.now());
+        view.setLastMessage(lastMessage);
+        view.setCreatedBy(1L);
+        view.setCreatedAt(Instant.now());
+        view.setUpdatedAt(Instant.now());
+        return view;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.chat_query_service.benchmark;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Repository Spring Data giả lập bằng HashMap (qua dynamic proxy) để benchmark đo phần xử lý projection, không đo MongoDB.
+ * Hỗ trợ save, findById và các finder được đăng ký bằng {@link #finder(String, Function)}.
+ */
+final class InMemoryRepository implements InvocationHandler {
+
+    private final Map<Object, Object> store = new HashMap<>();
+    private final Function<Object, Object> keyOf;
+    private final Map<String, Function<Object[], Object>> finders = new HashMap<>();
+
+    private InMemoryRepository(Function<Object, Object> keyOf) {
+        this.keyOf = keyOf;
+    }
+
+    static InMemoryRepository keyedBy(Function<Object, Object> keyOf) {
+        return new InMemoryRepository(keyOf);
+    }
+
+    InMemoryRepository finder(String methodName, Function<Object[], Object> finder) {
+        finders.put(methodName, finder);
+        return this;
+    }
+
+    Object get(Object key) {
+        return store.get(key);
+    }
+
+    <R> R as(Class<R> repositoryType) {
+        return repositoryType.cast(Proxy.newProxyInstance(repositoryType.getClassLoader(), new Class<?>[] { repositoryType }, this));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "save" -> {
+                store.put(keyOf.apply(args[0]), args[0]);
+                return args[0];
+            }
+            case "findById" -> {
+                return Optional.ofNullable(store.get(args[0]));
+            }
+            case "hashCode" -> {
+                return System.identityHashCode(proxy);
+            }
+            case "equals" -> {
+                return proxy == args[0];
+            }
+            case "toString" -> {
+                return "InMemoryRepository";
+            }
+            default -> {
+                Function<Object[], Object> finder = finders.get(method.getName());
+                if (finder == null) {
+                    throw new UnsupportedOperationException(method.getName() + " is not supported by the in-memory repository");
+                }
+                return finder.apply(args);
+            }
+        }
+    }
+}
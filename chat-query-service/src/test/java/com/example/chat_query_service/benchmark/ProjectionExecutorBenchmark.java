@@ -0,0 +1,74 @@
+package com.example.chat_query_service.benchmark;
+
+import com.example.chat_query_service.kafka.ProjectionExecutor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Thông lượng (sự kiện/giây) của ProjectionExecutor theo số worker. Mỗi tác vụ giả lập một lần ghi MongoDB bằng
+ * cách chờ {@code mongoLatencyMicros}; sự kiện được rải đều cho {@link #ROOMS} room.
+ * Mỗi tác vụ kiểm tra thứ tự roomSeq của room; số lần sai thứ tự được in ra khi kết thúc (phải bằng 0).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectionExecutorBenchmark {
+
+    private static final int ROOMS = 256;
+    private static final int EVENTS_PER_INVOCATION = 2048;
+
+    @Param({"1", "4", "16"})
+    public int workers;
+
+    @Param({"200"})
+    public long mongoLatencyMicros;
+
+    private ProjectionExecutor executor;
+    private long[] nextSeq;
+    private long[] lastProjectedSeq;
+    private final AtomicLong outOfOrder = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        executor = new ProjectionExecutor("benchmark-projection", workers, 256, () -> { }, () -> { });
+        nextSeq = new long[ROOMS];
+        lastProjectedSeq = new long[ROOMS];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        executor.close();
+        System.out.println("Out-of-order projections: " + outOfOrder.get());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS_PER_INVOCATION)
+    public void project() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(EVENTS_PER_INVOCATION);
+        long latencyNanos = TimeUnit.MICROSECONDS.toNanos(mongoLatencyMicros);
+        for (int i = 0; i < EVENTS_PER_INVOCATION; i++) {
+            int room = i % ROOMS;
+            long seq = ++nextSeq[room];
+            Runnable task = () -> {
+                LockSupport.parkNanos(latencyNanos);
+                if (seq != lastProjectedSeq[room] + 1) {
+                    outOfOrder.incrementAndGet();
+                }
+                lastProjectedSeq[room] = seq;
+                done.countDown();
+            };
+            // Giống consumer bị pause rồi giao lại record khi hàng đợi vơi
+            while (!executor.trySubmit((long) room, task)) {
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+            }
+        }
+        done.await();
+    }
+}
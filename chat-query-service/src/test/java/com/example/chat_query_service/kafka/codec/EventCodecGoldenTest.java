@@ -0,0 +1,150 @@
+package com.example.chat_query_service.kafka.codec;
+
+import com.example.chat_query_service.document.ChatRoomView;
+import com.example.chat_query_service.kafka.dto.MessageSentEvent;
+import com.example.chat_query_service.kafka.dto.ReadMarkerEvent;
+import com.example.chat_query_service.kafka.dto.ReadStatusUpdateEvent;
+import com.example.chat_query_service.kafka.dto.RoomCreatedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Wire format cố định của codec. Các payload dưới đây giống hệt trong EventCodecGoldenTest của chat-command và
+ * websocket: đổi một trong ba bản sao codec mà không đổi hai bản còn lại sẽ làm test của service đó fail.
+ * v4 là payload chat-command ghi, v5 là payload chat-query ghi.
+ */
+class EventCodecGoldenTest {
+
+    static final String MESSAGE_SENT_V4 = "ce0401ff01f2fdeee0909238540e0b4e677579e1bb856e20416e0978696e206368c3a06f80c49fd50cc0a9d33a0680c49fd50c8084af5f";
+    static final String MESSAGE_SENT_V5 = "ce0501ff01f2fdeee0909238540e0b4e677579e1bb856e20416e0978696e206368c3a06f80c49fd50cc0a9d33a0680c49fd50c8084af5f";
+    static final String ROOM_CREATED_V4 = "ce04027f54045465616d0e80c49fd50c0002070e02416e80c49fd50c0001100001";
+    static final String ROOM_CREATED_V5 = "ce05027f54045465616d0e80c49fd50c0002070e02416e80c49fd50c0001100001";
+    static final String READ_MARKER_V4 = "ce0403075410f2fdeee0909238";
+    static final String READ_MARKER_V5 = "ce0503075410f2fdeee0909238";
+    static final String READ_STATUS_UPDATE_V5 = "ce05040f5410010a";
+    static final String ROOM_UPDATED_V5 = "ce0505ff0354045465616d020e100110010ff2fdeee09092380e0978696e206368c3a06f80c49fd50cc0a9d33a0e80c49fd50c0082c49fd50c00011004";
+
+    private static final Instant T = Instant.ofEpochSecond(1_700_000_000L);
+
+    @Test
+    void encodesMessageSent() {
+        assertThat(hex(EventCodec.encode(messageSent()))).isEqualTo(MESSAGE_SENT_V5);
+    }
+
+    @Test
+    void encodesRoomCreated() {
+        assertThat(hex(EventCodec.encode(roomCreated()))).isEqualTo(ROOM_CREATED_V5);
+    }
+
+    @Test
+    void encodesReadMarker() {
+        assertThat(hex(EventCodec.encode(readMarker()))).isEqualTo(READ_MARKER_V5);
+    }
+
+    @Test
+    void encodesReadStatusUpdate() {
+        assertThat(hex(EventCodec.encode(readStatusUpdate()))).isEqualTo(READ_STATUS_UPDATE_V5);
+    }
+
+    @Test
+    void encodesRoomUpdatedWithDerivedUnreadStatus() {
+        assertThat(hex(EventCodec.encode(roomUpdated()))).isEqualTo(ROOM_UPDATED_V5);
+    }
+
+    @Test
+    void decodesChatCommandPayloads() {
+        assertThat(decode(MESSAGE_SENT_V4)).usingRecursiveComparison().isEqualTo(messageSent());
+        assertThat(decode(ROOM_CREATED_V4)).usingRecursiveComparison().isEqualTo(roomCreated());
+        assertThat(decode(READ_MARKER_V4)).usingRecursiveComparison().isEqualTo(readMarker());
+    }
+
+    @Test
+    void decodesOwnPayloads() {
+        assertThat(decode(MESSAGE_SENT_V5)).usingRecursiveComparison().isEqualTo(messageSent());
+        assertThat(decode(READ_STATUS_UPDATE_V5)).usingRecursiveComparison().isEqualTo(readStatusUpdate());
+        // unreadCounts (bit 8) ghi đè giá trị 0/1 suy ra từ unreadStatus (bit 3)
+        assertThat(decode(ROOM_UPDATED_V5)).usingRecursiveComparison().isEqualTo(roomUpdated());
+    }
+
+    static MessageSentEvent messageSent() {
+        MessageSentEvent event = new MessageSentEvent();
+        event.setMessageId(123_456_789_012_345L);
+        event.setRoomId(42L);
+        event.setSenderId(7L);
+        event.setSenderFullName("Nguyễn An");
+        event.setContent("xin chào");
+        event.setSentAt(T.plusMillis(123));
+        event.setRoomSeq(3L);
+        event.setPersistedAt(T.plusMillis(200));
+        return event;
+    }
+
+    static RoomCreatedEvent roomCreated() {
+        RoomCreatedEvent.ParticipantDTO creator = new RoomCreatedEvent.ParticipantDTO();
+        creator.setId(7L);
+        creator.setFullName("An");
+        creator.setJoinedAt(T);
+        RoomCreatedEvent.ParticipantDTO member = new RoomCreatedEvent.ParticipantDTO();
+        member.setId(8L);
+
+        RoomCreatedEvent event = new RoomCreatedEvent();
+        event.setRoomId(42L);
+        event.setRoomName("Team");
+        event.setCreatedBy(7L);
+        event.setCreatedAt(T);
+        event.setParticipants(List.of(creator, member));
+        event.setChunkIndex(0);
+        event.setChunkCount(1);
+        return event;
+    }
+
+    static ReadMarkerEvent readMarker() {
+        ReadMarkerEvent event = new ReadMarkerEvent();
+        event.setRoomId(42L);
+        event.setCustomerId(8L);
+        event.setLastReadMessageId(123_456_789_012_345L);
+        return event;
+    }
+
+    static ReadStatusUpdateEvent readStatusUpdate() {
+        ReadStatusUpdateEvent event = new ReadStatusUpdateEvent();
+        event.setRoomId(42L);
+        event.setCustomerId(8L);
+        event.setIsUnread(true);
+        event.setUnreadCount(5L);
+        return event;
+    }
+
+    static ChatRoomView roomUpdated() {
+        ChatRoomView.LastMessageInfo lastMessage = new ChatRoomView.LastMessageInfo();
+        lastMessage.setMessageId(123_456_789_012_345L);
+        lastMessage.setSenderId(7L);
+        lastMessage.setContent("xin chào");
+        lastMessage.setSentAt(T.plusMillis(123));
+
+        ChatRoomView view = new ChatRoomView();
+        view.setRoomId(42L);
+        view.setRoomName("Team");
+        view.setParticipantIds(List.of(7L, 8L));
+        view.setUnreadCounts(Map.of(8L, 2L));
+        view.setLastMessage(lastMessage);
+        view.setCreatedBy(7L);
+        view.setCreatedAt(T);
+        view.setUpdatedAt(T.plusSeconds(1));
+        return view;
+    }
+
+    private static Object decode(String payload) {
+        return EventCodec.decode(HexFormat.of().parseHex(payload));
+    }
+
+    private static String hex(byte[] payload) {
+        return HexFormat.of().formatHex(payload);
+    }
+}
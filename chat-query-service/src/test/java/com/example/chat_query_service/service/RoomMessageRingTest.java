@@ -0,0 +1,134 @@
+package com.example.chat_query_service.service;
+
+import com.example.chat_query_service.document.MessageDocument;
+import com.example.chat_query_service.service.RecentMessageCache.RoomMessageRing;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RoomMessageRingTest {
+
+    @Test
+    void latestReturnsNewestFirst() {
+        RoomMessageRing ring = ringWith(5, true, 1, 2, 3);
+
+        assertThat(seqs(ring.latest(2))).containsExactly(3L, 2L);
+        // Ring chứa tới đầu room nên trang dài hơn ring vẫn trả lời được
+        assertThat(seqs(ring.latest(10))).containsExactly(3L, 2L, 1L);
+    }
+
+    @Test
+    void latestReturnsNullWhenRingDoesNotReachStart() {
+        RoomMessageRing ring = ringWith(5, true, 4, 5);
+
+        assertThat(ring.latest(1)).isNotNull();
+        assertThat(ring.latest(3)).isNull();
+        assertThat(seqs(ring.latest(3, true))).containsExactly(5L, 4L);
+    }
+
+    @Test
+    void appendRejectsGapAndIgnoresRedelivery() {
+        RoomMessageRing ring = ringWith(5, true, 1, 2);
+
+        assertThat(ring.append(message(2))).isTrue();
+        assertThat(ring.append(message(1))).isTrue();
+        assertThat(ring.append(message(4))).isFalse();
+        assertThat(ring.append(withoutSeq())).isFalse();
+        assertThat(seqs(ring.latest(10))).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void overwritingOldestDropsReachesStart() {
+        RoomMessageRing ring = ringWith(3, true, 1, 2, 3, 4, 5);
+
+        assertThat(seqs(ring.latest(3))).containsExactly(5L, 4L, 3L);
+        assertThat(ring.latest(4)).isNull();
+    }
+
+    @Test
+    void ofKeepsContiguousRunEndingAtNewest() {
+        RoomMessageRing ring = RoomMessageRing.of(10, List.of(message(5), message(10), message(9), message(9), message(8), message(6)), true);
+
+        assertThat(seqs(ring.latest(3))).containsExactly(10L, 9L, 8L);
+        // Khoảng trống giữa 8 và 6 nên ring không còn chứa tới đầu room
+        assertThat(ring.latest(4)).isNull();
+    }
+
+    @Test
+    void ofMergesSeedPageWithProjectedMessages() {
+        // Trang đọc từ MongoDB (mới nhất trước) cộng các tin projection đã ghi vào ring trong lúc đọc
+        List<MessageDocument> seeded = List.of(message(3), message(2), message(1), message(4), message(3));
+
+        RoomMessageRing ring = RoomMessageRing.of(10, seeded, true);
+
+        assertThat(seqs(ring.latest(10))).containsExactly(4L, 3L, 2L, 1L);
+        assertThat(ring.append(message(5))).isTrue();
+    }
+
+    @Test
+    void ofDropsReachesStartWhenRunExceedsCapacity() {
+        RoomMessageRing ring = RoomMessageRing.of(2, List.of(message(1), message(2), message(3)), true);
+
+        assertThat(seqs(ring.latest(2))).containsExactly(3L, 2L);
+        assertThat(ring.latest(3)).isNull();
+    }
+
+    @Test
+    void ofReturnsNullWhenSeqMissing() {
+        assertThat(RoomMessageRing.of(10, List.of(message(1), withoutSeq()), true)).isNull();
+    }
+
+    @Test
+    void beforeReturnsOlderMessagesInsideRing() {
+        RoomMessageRing ring = ringWith(10, true, 5, 6, 7, 8, 9);
+
+        assertThat(seqs(ring.before(messageId(8), 2))).containsExactly(7L, 6L);
+        // Trang vượt qua tin cũ nhất của ring phải đọc MongoDB
+        assertThat(ring.before(messageId(8), 4)).isNull();
+        // Index không mới hơn tin cũ nhất: trang nằm trước ring
+        assertThat(ring.before(messageId(5), 1)).isNull();
+        assertThat(ring.before(null, 1)).isNull();
+    }
+
+    @Test
+    void beforeReturnsShortPageWhenRingReachesStart() {
+        RoomMessageRing ring = ringWith(10, true, 1, 2, 3);
+
+        assertThat(seqs(ring.before(messageId(3), 5))).containsExactly(2L, 1L);
+        assertThat(ring.before(messageId(1), 5)).isEmpty();
+    }
+
+    private static RoomMessageRing ringWith(int capacity, boolean reachesStart, long... seqs) {
+        RoomMessageRing ring = new RoomMessageRing(capacity, reachesStart);
+        for (long seq : seqs) {
+            assertThat(ring.append(message(seq))).isTrue();
+        }
+        return ring;
+    }
+
+    private static MessageDocument message(long seq) {
+        MessageDocument message = withoutSeq();
+        message.setRoomSeq(seq);
+        message.setMessageId(messageId(seq));
+        message.setContent("message " + seq);
+        return message;
+    }
+
+    private static MessageDocument withoutSeq() {
+        MessageDocument message = new MessageDocument();
+        message.setRoomId(1L);
+        message.setMessageId(1L);
+        return message;
+    }
+
+    private static long messageId(long seq) {
+        return 1_000L + seq * 10;
+    }
+
+    private static List<Long> seqs(List<MessageDocument> messages) {
+        assertThat(messages).isNotNull();
+        return messages.stream().map(MessageDocument::getRoomSeq).toList();
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.customer_management_service.controller;
 import com.example.customer_management_service.dto.ChangePasswordRequest;
 import com.example.customer_management_service.dto.CreateCustomerRequest;
+import com.example.customer_management_service.dto.CustomerFullNamesRequest;
 import com.example.customer_management_service.dto.ForgetPasswordConfirmRequest;
 import com.example.customer_management_service.dto.ForgetPasswordInitiateRequest;
 import com.example.customer_management_service.dto.GenericResponse;
@@ -17,6 +18,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RestController;
 import java.util.Optional;
 import java.util.List;
+import java.util.Map;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 
@@ -135,6 +137,20 @@ public class CustomerController {
         }
     }
 
+    @PostMapping("/fullNames")
+    public ResponseEntity<GenericResponse<Map<Long, String>>> getCustomerFullNames(@RequestBody CustomerFullNamesRequest request) {
+        if (request.getCustomerIds() == null || request.getCustomerIds().isEmpty()) {
+            return ResponseEntity.badRequest().body(GenericResponse.failure("customerIds cannot be empty."));
+        }
+
+        try {
+            Map<Long, String> fullNames = customerService.getCustomerFullNames(request.getCustomerIds());
+            return ResponseEntity.ok(GenericResponse.success("Customer full names retrieved successfully.", fullNames));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(404).body(GenericResponse.failure(e.getMessage()));
+        }
+    }
+
     @PostMapping("/create/account")
     public ResponseEntity<GenericResponse<Customer>> createCustomer(@RequestBody CreateCustomerRequest request) {
         try {
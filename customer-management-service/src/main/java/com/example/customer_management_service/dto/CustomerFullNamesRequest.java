@@ -0,0 +1,14 @@
+package com.example.customer_management_service.dto;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerFullNamesRequest {
+    private List<Long> customerIds;
+}
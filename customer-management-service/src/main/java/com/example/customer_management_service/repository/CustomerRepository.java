@@ -4,6 +4,7 @@ import com.example.customer_management_service.model.Customer;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
 
@@ -14,7 +15,14 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
     List<Customer> findByEmailOrPhoneNumber(String email, String phoneNumber);
     List<Customer> findByFullNameContainingIgnoreCase(String fullName);
 
+    List<CustomerFullName> findByCustomerIdIn(Collection<Long> customerIds);
+
     Optional<Customer> findByEmail(String email);
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
+
+    interface CustomerFullName {
+        Long getCustomerId();
+        String getFullName();
+    }
 }
\ No newline at end of file
@@ -21,13 +21,18 @@ import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import java.util.concurrent.TimeUnit;
 
 import java.util.Optional;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.springframework.util.StringUtils;
 
 @Service
@@ -47,6 +52,8 @@ public class CustomerService {
     
     private static final String OTP_SERVICE_BASE_URL = "http://otp-service:8087";
     private static final String MAIL_SERVICE_BASE_URL = "http://mail-service:8088";
+    // Mọi instance chat-command-service subscribe channel này (CustomerNameInvalidationConfig) để xoá tên cũ khỏi cache
+    private static final String CUSTOMER_NAME_CHANGED_CHANNEL = "customer-name-changed";
 
     private static final long OTP_EXPIRY_SECONDS = 300; 
 
@@ -59,6 +66,23 @@ public class CustomerService {
         return customerRepository.findByCustomerId(customerId);
     }
 
+    public Map<Long, String> getCustomerFullNames(List<Long> customerIds) {
+        Set<Long> requestedIds = new LinkedHashSet<>(customerIds);
+        Map<Long, String> fullNames = new LinkedHashMap<>();
+        for (CustomerRepository.CustomerFullName row : customerRepository.findByCustomerIdIn(requestedIds)) {
+            fullNames.put(row.getCustomerId(), row.getFullName());
+        }
+
+        if (fullNames.size() != requestedIds.size()) {
+            List<Long> missingIds = requestedIds.stream()
+                .filter(id -> !fullNames.containsKey(id))
+                .toList();
+            throw new IllegalArgumentException("Customers not found: " + missingIds);
+        }
+
+        return fullNames;
+    }
+
     public List<Customer> searchCustomerByPhoneNumber(String phoneNumber) {
         return customerRepository.findByPhoneNumberContaining(phoneNumber);
     }
@@ -95,12 +119,25 @@ public class CustomerService {
             }
         }
         
+        boolean fullNameChanged = !request.getFullName().equals(customer.getFullName());
+
         customer.setFullName(request.getFullName());
         customer.setEmail(request.getEmail());
         customer.setPhoneNumber(request.getPhoneNumber());
         customer.setAvatarColor(request.getAvatarColor());
 
-        return Optional.of(customerRepository.save(customer));
+        Customer savedCustomer = customerRepository.save(customer);
+
+        if (fullNameChanged) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictChatCustomerNameCache(customerId);
+                }
+            });
+        }
+
+        return Optional.of(savedCustomer);
     }
 
     @Transactional
@@ -312,6 +349,16 @@ public class CustomerService {
         }
     }
 
+    private void evictChatCustomerNameCache(Long customerId) {
+        try {
+            redisTemplate.convertAndSend(CUSTOMER_NAME_CHANGED_CHANNEL, String.valueOf(customerId));
+            System.out.println("Published customer name change to chat-command-service instances for customer " + customerId);
+
+        } catch (Exception e) {
+            System.err.println("Error evicting chat-command-service name cache for customer " + customerId + ": " + e.getMessage());
+        }
+    }
+
     @Data
     @AllArgsConstructor
     @NoArgsConstructor
@@ -0,0 +1,56 @@
+#!/usr/bin/env bash
+# Chạy cùng một profile tải với nhiều cấu hình chat-command-service và ghi tóm tắt vào results/<experiment>.csv.
+#
+# Cách dùng (từ thư mục gốc repo, stack đang chạy bằng docker compose):
+#   load-generator/experiments/compare-configs.sh <experiment> <ENV_VAR> "<value> <value> ..." <repeats> [loadgen args...]
+#
+# Với mỗi giá trị, chat-command-service được tạo lại với ENV_VAR=<value> (docker-compose.yml truyền biến này vào
+# container), rồi load-generator chạy <repeats> lần. Mỗi dòng CSV là một lần chạy; báo cáo đầy đủ và các file .hgrm
+# nằm trong load-generator/target/loadgen/<experiment>-<value>-<run>/.
+# EXPERIMENT_ENV="VAR=value ..." giữ cố định các biến khác cho mọi cấu hình, ví dụ để tắt các limiter không được đo.
+set -euo pipefail
+
+if [ $# -lt 4 ]; then
+    sed -n '2,10p' "$0"
+    exit 1
+fi
+
+EXPERIMENT="$1"; VAR="$2"; VALUES="$3"; REPEATS="$4"; shift 4
+read -r -a FIXED_ENV <<< "${EXPERIMENT_ENV:-}"
+ROOT="$(cd "$(dirname "$0")/../.." && pwd)"
+RESULTS="$ROOT/load-generator/experiments/results/$EXPERIMENT.csv"
+JAR="$ROOT/load-generator/target/load-generator-0.0.1-SNAPSHOT.jar"
+
+(cd "$ROOT/load-generator" && ./mvnw -B -q package -DskipTests)
+mkdir -p "$(dirname "$RESULTS")"
+echo "$VAR,run,offered_msg_s,goodput_msg_s,rate_limited_429,shed_503,other_errors,command_p50_ms,command_p99_ms,delivery_p99_ms" > "$RESULTS"
+
+for value in $VALUES; do
+    echo "=== $EXPERIMENT: $VAR=$value ${FIXED_ENV[*]:-}"
+    (cd "$ROOT" && env ${FIXED_ENV[@]+"${FIXED_ENV[@]}"} "$VAR=$value" docker compose up -d --no-deps --force-recreate chat-command-service)
+    # Chờ service khởi động xong (qua gateway trả về bất kỳ mã HTTP nào khác 502/503/000)
+    for _ in $(seq 1 60); do
+        code=$(curl -s -o /dev/null -w '%{http_code}' -X POST "${LOADGEN_GATEWAY_URL:-http://localhost:8080}/command/message" || true)
+        case "$code" in 000|502|503|504) sleep 2 ;; *) break ;; esac
+    done
+
+    for run in $(seq 1 "$REPEATS"); do
+        run_id="$EXPERIMENT-$value-$run"
+        report="$ROOT/load-generator/target/loadgen/$run_id.txt"
+        mkdir -p "$(dirname "$report")"
+        (cd "$ROOT/load-generator" && java -jar "$JAR" --loadgen.run-id="$run_id" "$@") | tee "$report"
+
+        offered=$(awk -F': ' '/^Offered rate/ {split($2, a, " "); print a[1]}' "$report")
+        goodput=$(awk -F'[()]' '/^Goodput/ {split($4, a, " "); print a[1]}' "$report")
+        limited=$(awk -F': ' '/^Rate limited/ {print $2}' "$report")
+        shed=$(awk -F': ' '/^Shed/ {print $2}' "$report")
+        other=$(awk -F': ' '/^Other HTTP errors/ {print $2}' "$report")
+        cmd_p50=$(sed -n 's/^Command latency.*p50=\([0-9.]*\).*/\1/p' "$report")
+        cmd_p99=$(sed -n 's/^Command latency.* p99=\([0-9.]*\).*/\1/p' "$report")
+        del_p99=$(sed -n 's/^Send -> WebSocket delivery.* p99=\([0-9.]*\).*/\1/p' "$report")
+        echo "$value,$run,$offered,$goodput,$limited,$shed,$other,$cmd_p50,$cmd_p99,$del_p99" >> "$RESULTS"
+    done
+done
+
+echo "Kết quả: $RESULTS"
+column -s, -t < "$RESULTS"
@@ -0,0 +1,17 @@
+#!/usr/bin/env bash
+# Group commit bật và tắt ở 1k, 5k và 10k msg/s (open-loop), mỗi cấu hình 3 lần.
+#
+#   load-generator/experiments/group-commit.sh
+#
+# Mỗi mức tải ghi một file results/group-commit-<rate>.csv; so sánh goodput và command_p99_ms giữa hai cấu hình.
+# Kỳ vọng: ở tải thấp group commit thêm tối đa max-wait vào p99; ở tải cao throughput tăng vì mỗi lần fsync phục vụ cả lô.
+# Rate limiter và concurrency limiter bị tắt để 429/503 không che mất khác biệt của đường ghi.
+set -euo pipefail
+
+export EXPERIMENT_ENV="CHAT_RATE_LIMIT_ENABLED=false CHAT_CONCURRENCY_LIMIT_ENABLED=false"
+
+for rate in ${RATES:-1000 5000 10000}; do
+    "$(dirname "$0")/compare-configs.sh" "group-commit-$rate" CHAT_GROUP_COMMIT_ENABLED "false true" 3 \
+        --loadgen.message-rate="$rate" --loadgen.customers=2000 --loadgen.sessions=500 --loadgen.rooms=1000 \
+        --loadgen.typing-ratio=0 --loadgen.warmup=30s --loadgen.duration=2m "$@"
+done
@@ -0,0 +1,16 @@
+#!/usr/bin/env bash
+# Quá tải có kiểm soát: adaptive concurrency limiter bật và tắt, tải ~3x mức bền vững, mỗi cấu hình 3 lần.
+#
+#   SUSTAINABLE_RATE=300 load-generator/experiments/overload-limiter.sh
+#
+# SUSTAINABLE_RATE là goodput đo được khi tải tăng dần tới lúc p99 bắt đầu vượt SLO trên cùng máy.
+# Kỳ vọng: khi limiter bật, goodput giữ gần SUSTAINABLE_RATE, phần dư bị shed (503) và p99 của request được nhận
+# giữ ổn định; khi tắt, goodput giảm và p99 tăng theo hàng đợi.
+# Rate limiter theo customer bị tắt để phần tải vượt mức được xử lý bởi concurrency limiter chứ không bị trả 429 trước.
+set -euo pipefail
+
+export EXPERIMENT_ENV="CHAT_RATE_LIMIT_ENABLED=false"
+RATE=$(( ${SUSTAINABLE_RATE:-300} * 3 ))
+exec "$(dirname "$0")/compare-configs.sh" overload-limiter CHAT_CONCURRENCY_LIMIT_ENABLED "true false" 3 \
+    --loadgen.message-rate="$RATE" --loadgen.customers=500 --loadgen.sessions=500 --loadgen.rooms=200 \
+    --loadgen.warmup=30s --loadgen.duration=3m "$@"
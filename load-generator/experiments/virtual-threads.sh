@@ -0,0 +1,17 @@
+#!/usr/bin/env bash
+# Platform thread và virtual thread cho chat-command-service dưới cùng một tải, mỗi cấu hình 3 lần.
+#
+#   load-generator/experiments/virtual-threads.sh
+#
+# Mỗi mức tải ghi một file results/virtual-threads-<rate>.csv. Mức cao nhất nên vượt số thread Tomcat (200) nhân
+# với thông lượng mỗi thread, để thấy khác biệt khi request chờ DB/Redis; giữ nguyên kích thước pool Hikari giữa hai lần.
+# Rate limiter và concurrency limiter bị tắt để 429/503 không che mất khác biệt của mô hình thread.
+set -euo pipefail
+
+export EXPERIMENT_ENV="CHAT_RATE_LIMIT_ENABLED=false CHAT_CONCURRENCY_LIMIT_ENABLED=false"
+
+for rate in ${RATES:-1000 3000}; do
+    "$(dirname "$0")/compare-configs.sh" "virtual-threads-$rate" CHAT_VIRTUAL_THREADS_ENABLED "false true" 3 \
+        --loadgen.message-rate="$rate" --loadgen.customers=2000 --loadgen.sessions=500 --loadgen.rooms=1000 \
+        --loadgen.warmup=30s --loadgen.duration=2m "$@"
+done
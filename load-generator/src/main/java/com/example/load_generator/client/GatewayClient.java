@@ -0,0 +1,117 @@
+package com.example.load_generator.client;
+
+import com.example.load_generator.config.LoadGeneratorProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Gọi các endpoint HTTP qua gateway giống như frontend: JWT đi trong cookie {@code jwt_token}.
+ */
+@Component
+public class GatewayClient {
+
+    private static final String JWT_COOKIE = "jwt_token";
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final String baseUrl;
+    private final Duration requestTimeout;
+
+    public GatewayClient(LoadGeneratorProperties properties, ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.baseUrl = properties.getGatewayUrl();
+        this.requestTimeout = properties.getRequestTimeout();
+        this.httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(properties.getRequestTimeout())
+            .build();
+    }
+
+    public Long createCustomer(String username, String password, String fullName, String email) throws IOException, InterruptedException {
+        JsonNode data = expectSuccess(post("/customer/create/account", null, Map.of(
+            "username", username,
+            "password", password,
+            "fullName", fullName,
+            "email", email
+        )), "create customer " + username);
+        return data.get("customerId").asLong();
+    }
+
+    /**
+     * Đăng nhập và trả về JWT lấy từ cookie {@code jwt_token}.
+     */
+    public String login(String username, String password) throws IOException, InterruptedException {
+        HttpResponse<String> response = post("/auth/login", null, Map.of("username", username, "password", password));
+        if (response.statusCode() != 200) {
+            throw new IOException("Login failed for " + username + ": HTTP " + response.statusCode() + " " + response.body());
+        }
+        for (String setCookie : response.headers().allValues("Set-Cookie")) {
+            if (setCookie.startsWith(JWT_COOKIE + "=")) {
+                int end = setCookie.indexOf(';');
+                return setCookie.substring(JWT_COOKIE.length() + 1, end < 0 ? setCookie.length() : end);
+            }
+        }
+        throw new IOException("Login response for " + username + " did not set " + JWT_COOKIE);
+    }
+
+    public Long createRoom(String jwt, String roomName, List<Long> targetCustomerIds) throws IOException, InterruptedException {
+        JsonNode data = expectSuccess(post("/command/room", jwt, Map.of(
+            "roomName", roomName,
+            "targetCustomerIds", targetCustomerIds
+        )), "create room " + roomName);
+        return data.asLong();
+    }
+
+    /**
+     * Gửi tin nhắn và trả về HTTP status (không ném lỗi với 4xx/5xx để bên gọi tự thống kê 429/503).
+     */
+    public int sendMessage(String jwt, Long roomId, String content) throws IOException, InterruptedException {
+        return post("/command/message", jwt, Map.of("roomId", roomId, "content", content)).statusCode();
+    }
+
+    public Set<Long> listRoomIds(String jwt) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/query/rooms"))
+            .timeout(requestTimeout)
+            .header("Cookie", JWT_COOKIE + "=" + jwt)
+            .GET()
+            .build();
+        JsonNode data = expectSuccess(httpClient.send(request, HttpResponse.BodyHandlers.ofString()), "list rooms");
+
+        Set<Long> roomIds = new HashSet<>();
+        for (JsonNode room : data) {
+            roomIds.add(room.get("roomId").asLong());
+        }
+        return roomIds;
+    }
+
+    private HttpResponse<String> post(String path, String jwt, Object body) throws IOException, InterruptedException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .timeout(requestTimeout)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+        if (jwt != null) {
+            builder.header("Cookie", JWT_COOKIE + "=" + jwt);
+        }
+        return httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private JsonNode expectSuccess(HttpResponse<String> response, String action) throws IOException {
+        JsonNode body = response.body() == null || response.body().isEmpty() ? null : objectMapper.readTree(response.body());
+        if (response.statusCode() != 200 || body == null || !body.path("success").asBoolean()) {
+            throw new IOException("Failed to " + action + ": HTTP " + response.statusCode() + " " + response.body());
+        }
+        return body.get("data");
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.load_generator.client;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
+/**
+ * Client STOMP 1.2 tối giản trên {@link WebSocket} của JDK: đủ cho CONNECT, SUBSCRIBE, SEND và nhận MESSAGE.
+ * JWT được gửi qua native header {@code jwt_token} của frame CONNECT (như AuthChannelInterceptor đang yêu cầu).
+ * Heart-beat của STOMP bị tắt; presence được giữ bằng /app/extendOnline.
+ */
+public class StompSession implements WebSocket.Listener {
+
+    private final Long customerId;
+    private final BiConsumer<String, String> messageHandler;
+    private final CompletableFuture<Void> connected = new CompletableFuture<>();
+    private final StringBuilder incoming = new StringBuilder();
+    private final ReentrantLock sendLock = new ReentrantLock();
+    private final AtomicInteger subscriptionIds = new AtomicInteger();
+    private WebSocket webSocket;
+
+    private StompSession(Long customerId, BiConsumer<String, String> messageHandler) {
+        this.customerId = customerId;
+        this.messageHandler = messageHandler;
+    }
+
+    /**
+     * Mở WebSocket, gửi CONNECT và chờ CONNECTED.
+     *
+     * @param messageHandler nhận (destination, body) của mỗi frame MESSAGE; chạy trên thread đọc của WebSocket
+     */
+    public static StompSession connect(HttpClient httpClient, String url, Long customerId, String jwt,
+                                       BiConsumer<String, String> messageHandler, Duration timeout) throws Exception {
+        StompSession session = new StompSession(customerId, messageHandler);
+        session.webSocket = httpClient.newWebSocketBuilder()
+            .connectTimeout(timeout)
+            .buildAsync(URI.create(url), session)
+            .get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+
+        String host = URI.create(url).getHost();
+        session.sendFrame("CONNECT\naccept-version:1.2\nhost:" + host + "\nheart-beat:0,0\njwt_token:" + jwt + "\n\n");
+        session.connected.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        return session;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public boolean isOpen() {
+        return webSocket != null && !webSocket.isOutputClosed() && !webSocket.isInputClosed();
+    }
+
+    public void subscribe(String destination) {
+        sendFrame("SUBSCRIBE\nid:sub-" + subscriptionIds.incrementAndGet() + "\ndestination:" + destination + "\n\n");
+    }
+
+    public void send(String destination, String jsonBody) {
+        sendFrame("SEND\ndestination:" + destination + "\ncontent-type:application/json\n\n" + jsonBody);
+    }
+
+    public void disconnect() {
+        if (!isOpen()) {
+            return;
+        }
+        try {
+            sendFrame("DISCONNECT\n\n");
+            webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "").get(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            webSocket.abort();
+        }
+    }
+
+    // WebSocket chỉ cho phép một lệnh gửi đang chờ tại một thời điểm
+    private void sendFrame(String frame) {
+        sendLock.lock();
+        try {
+            webSocket.sendText(frame + "\0", true).join();
+        } finally {
+            sendLock.unlock();
+        }
+    }
+
+    @Override
+    public void onOpen(WebSocket webSocket) {
+        webSocket.request(1);
+    }
+
+    @Override
+    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+        incoming.append(data);
+        int end;
+        while ((end = incoming.indexOf("\0")) >= 0) {
+            String frame = incoming.substring(0, end);
+            incoming.delete(0, end + 1);
+            handleFrame(frame);
+        }
+        webSocket.request(1);
+        return null;
+    }
+
+    @Override
+    public void onError(WebSocket webSocket, Throwable error) {
+        connected.completeExceptionally(error);
+        System.err.println("STOMP session of customer " + customerId + " failed: " + error.getMessage());
+    }
+
+    @Override
+    public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+        connected.completeExceptionally(new IllegalStateException("WebSocket closed (" + statusCode + "): " + reason));
+        return null;
+    }
+
+    private void handleFrame(String frame) {
+        // Bỏ các ký tự xuống dòng (heart-beat / EOL) đứng trước lệnh
+        int start = 0;
+        while (start < frame.length() && (frame.charAt(start) == '\n' || frame.charAt(start) == '\r')) {
+            start++;
+        }
+        if (start == frame.length()) {
+            return;
+        }
+
+        int headerEnd = frame.indexOf("\n\n", start);
+        String head = headerEnd < 0 ? frame.substring(start) : frame.substring(start, headerEnd);
+        String body = headerEnd < 0 ? "" : frame.substring(headerEnd + 2);
+
+        String[] lines = head.split("\r?\n");
+        String command = lines[0];
+        Map<String, String> headers = new HashMap<>();
+        for (int i = 1; i < lines.length; i++) {
+            int colon = lines[i].indexOf(':');
+            if (colon > 0) {
+                headers.putIfAbsent(lines[i].substring(0, colon), lines[i].substring(colon + 1));
+            }
+        }
+
+        switch (command) {
+            case "CONNECTED" -> connected.complete(null);
+            case "MESSAGE" -> messageHandler.accept(headers.get("destination"), body);
+            case "ERROR" -> {
+                String message = headers.getOrDefault("message", body);
+                connected.completeExceptionally(new IllegalStateException("STOMP ERROR: " + message));
+                System.err.println("STOMP ERROR for customer " + customerId + ": " + message);
+            }
+            default -> { }
+        }
+    }
+}
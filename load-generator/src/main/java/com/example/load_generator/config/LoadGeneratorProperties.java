@@ -0,0 +1,63 @@
+package com.example.load_generator.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Cấu hình một lần chạy tải; mọi giá trị có thể ghi đè bằng tham số dòng lệnh, ví dụ
+ * {@code --loadgen.message-rate=500 --loadgen.duration=5m}.
+ */
+@Data
+@ConfigurationProperties(prefix = "loadgen")
+public class LoadGeneratorProperties {
+
+    /** Địa chỉ Nginx/API Gateway (HTTP). */
+    private String gatewayUrl;
+
+    /** Endpoint STOMP native WebSocket. */
+    private String websocketUrl;
+
+    /** Tiền tố cho username/email của customer tạo ra; để trống thì sinh từ thời điểm chạy. */
+    private String runId;
+
+    private String password;
+
+    /** Số customer được tạo và đăng nhập. */
+    private int customers;
+
+    /** Số customer mở phiên STOMP (lấy từ đầu danh sách customer). */
+    private int sessions;
+
+    private int rooms;
+
+    /** Phân bố kích thước room dạng {@code size:weight,...}, ví dụ {@code 2:70,5:20,50:10}. */
+    private String roomSizes;
+
+    /** Tổng số tin nhắn mỗi giây gửi qua POST /command/message (open-loop). */
+    private double messageRate;
+
+    /** Độ dài nội dung tin nhắn (byte, ASCII). */
+    private int messageBytes;
+
+    /** Xác suất gửi /app/typing trước một tin nhắn (khi người gửi có phiên STOMP). */
+    private double typingRatio;
+
+    private Duration heartbeatInterval;
+
+    private Duration warmup;
+
+    private Duration duration;
+
+    /** Số request đồng thời tối đa khi tạo customer/room. */
+    private int setupConcurrency;
+
+    /** Thời gian chờ tối đa để room được chiếu sang chat-query-service trước khi subscribe. */
+    private Duration projectionTimeout;
+
+    private Duration requestTimeout;
+
+    /** Thư mục ghi phân bố percentile (.hgrm). */
+    private String outputDirectory;
+}
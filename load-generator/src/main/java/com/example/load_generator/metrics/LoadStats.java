@@ -0,0 +1,126 @@
+package com.example.load_generator.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thống kê của một lần chạy: histogram HDR (micro giây) cho độ trễ lệnh gửi tin và độ trễ gửi → nhận qua WebSocket,
+ * cùng bộ đếm theo kết quả HTTP. {@link #reset()} được gọi khi hết warmup để bỏ các mẫu khởi động.
+ */
+public class LoadStats {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private final Recorder commandLatency = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+    private final Recorder deliveryLatency = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder shed = new LongAdder();
+    private final LongAdder otherErrors = new LongAdder();
+    private final LongAdder transportErrors = new LongAdder();
+    private final LongAdder deliveries = new LongAdder();
+    private final LongAdder typingEvents = new LongAdder();
+    private final LongAdder heartbeats = new LongAdder();
+
+    private volatile long measuringSinceNanos = System.nanoTime();
+
+    public void recordCommand(long latencyNanos, int status) {
+        commandLatency.recordValue(clamp(latencyNanos));
+        switch (status) {
+            case 200 -> accepted.increment();
+            case 429 -> rateLimited.increment();
+            case 503 -> shed.increment();
+            default -> otherErrors.increment();
+        }
+    }
+
+    public void recordTransportError(long latencyNanos) {
+        commandLatency.recordValue(clamp(latencyNanos));
+        transportErrors.increment();
+    }
+
+    public void recordDelivery(long latencyNanos) {
+        deliveryLatency.recordValue(clamp(latencyNanos));
+        deliveries.increment();
+    }
+
+    public void recordTyping() {
+        typingEvents.increment();
+    }
+
+    public void recordHeartbeat() {
+        heartbeats.increment();
+    }
+
+    public void reset() {
+        commandLatency.reset();
+        deliveryLatency.reset();
+        for (LongAdder counter : new LongAdder[] { accepted, rateLimited, shed, otherErrors, transportErrors, deliveries, typingEvents, heartbeats }) {
+            counter.reset();
+        }
+        measuringSinceNanos = System.nanoTime();
+    }
+
+    /**
+     * In tóm tắt ra {@code out} và ghi phân bố percentile đầy đủ (đơn vị ms) vào {@code outputDirectory}.
+     */
+    public void report(double offeredRate, PrintStream out, Path outputDirectory) throws IOException {
+        double seconds = (System.nanoTime() - measuringSinceNanos) / 1_000_000_000d;
+        Histogram command = commandLatency.getIntervalHistogram();
+        Histogram delivery = deliveryLatency.getIntervalHistogram();
+        long sent = accepted.sum() + rateLimited.sum() + shed.sum() + otherErrors.sum() + transportErrors.sum();
+
+        out.println("==================== Load generator report ====================");
+        out.printf("Measured window     : %.1f s%n", seconds);
+        out.printf("Offered rate        : %.1f msg/s%n", offeredRate);
+        out.printf("Completed commands  : %d (%.1f /s)%n", sent, sent / seconds);
+        out.printf("Goodput (HTTP 200)  : %d (%.1f msg/s)%n", accepted.sum(), accepted.sum() / seconds);
+        out.printf("Rate limited (429)  : %d%n", rateLimited.sum());
+        out.printf("Shed (503)          : %d%n", shed.sum());
+        out.printf("Other HTTP errors   : %d%n", otherErrors.sum());
+        out.printf("Transport errors    : %d%n", transportErrors.sum());
+        out.printf("WebSocket deliveries: %d (%.1f /s)%n", deliveries.sum(), deliveries.sum() / seconds);
+        out.printf("Typing / heartbeats : %d / %d%n", typingEvents.sum(), heartbeats.sum());
+        printPercentiles(out, "Command latency (POST /message)", command);
+        printPercentiles(out, "Send -> WebSocket delivery", delivery);
+        out.println("================================================================");
+
+        Files.createDirectories(outputDirectory);
+        writeDistribution(outputDirectory.resolve("command-latency.hgrm"), command);
+        writeDistribution(outputDirectory.resolve("delivery-latency.hgrm"), delivery);
+        out.println("Percentile distributions written to " + outputDirectory.toAbsolutePath());
+    }
+
+    private static void printPercentiles(PrintStream out, String title, Histogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            out.println(title + ": no samples");
+            return;
+        }
+        out.printf("%s (ms): p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f (n=%d)%n",
+            title,
+            histogram.getValueAtPercentile(50) / 1000d,
+            histogram.getValueAtPercentile(90) / 1000d,
+            histogram.getValueAtPercentile(99) / 1000d,
+            histogram.getValueAtPercentile(99.9) / 1000d,
+            histogram.getMaxValue() / 1000d,
+            histogram.getTotalCount());
+    }
+
+    private static void writeDistribution(Path file, Histogram histogram) throws IOException {
+        try (PrintStream stream = new PrintStream(Files.newOutputStream(file))) {
+            histogram.outputPercentileDistribution(stream, 1000.0);
+        }
+    }
+
+    private static long clamp(long latencyNanos) {
+        return Math.min(HIGHEST_TRACKABLE_MICROS, Math.max(0, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+    }
+}
@@ -0,0 +1,284 @@
+package com.example.load_generator.scenario;
+
+import com.example.load_generator.client.GatewayClient;
+import com.example.load_generator.client.StompSession;
+import com.example.load_generator.config.LoadGeneratorProperties;
+import com.example.load_generator.metrics.LoadStats;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kịch bản tải end-to-end:
+ * tạo customer và đăng nhập, tạo room theo phân bố kích thước, mở phiên STOMP tới /ws/chat và subscribe
+ * /topic/message/roomId/{roomId}, rồi gửi tin nhắn open-loop với tốc độ cố định qua POST /command/message
+ * (kèm /app/typing và heartbeat /app/extendOnline).
+ * Độ trễ được đo từ thời điểm gửi dự kiến nên việc server chậm không làm giảm tải đặt vào (tránh coordinated omission).
+ */
+@Component
+@ConditionalOnProperty(name = "loadgen.autostart", havingValue = "true", matchIfMissing = true)
+public class ChatLoadScenario implements CommandLineRunner {
+
+    private static final String CONTENT_PREFIX = "lg|";
+    private static final long TICK_MILLIS = 10;
+
+    private final LoadGeneratorProperties properties;
+    private final GatewayClient gatewayClient;
+    private final ObjectMapper objectMapper;
+    private final LoadStats stats = new LoadStats();
+    private final Map<Long, StompSession> sessions = new ConcurrentHashMap<>();
+
+    private String runId;
+    private String padding;
+    private volatile long measureFromNanos = Long.MAX_VALUE;
+
+    record Customer(Long id, String username, String jwt) {}
+
+    record Room(Long roomId, List<Customer> members) {}
+
+    public ChatLoadScenario(LoadGeneratorProperties properties, GatewayClient gatewayClient, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.gatewayClient = gatewayClient;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void run(String... args) throws Exception {
+        runId = properties.getRunId() == null || properties.getRunId().isBlank()
+            ? Long.toString(Instant.now().getEpochSecond(), 36)
+            : properties.getRunId();
+        padding = "x".repeat(Math.max(0, properties.getMessageBytes() - 32));
+
+        System.out.println("--- Load generator run '" + runId + "' against " + properties.getGatewayUrl());
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2)) {
+            List<Customer> customers = createCustomers(executor);
+            List<Room> rooms = createRooms(executor, customers);
+            awaitProjection(rooms);
+            openSessions(executor, customers, rooms);
+            scheduler.scheduleAtFixedRate(this::sendHeartbeats, 0, properties.getHeartbeatInterval().toMillis(), TimeUnit.MILLISECONDS);
+
+            generateLoad(executor, scheduler, rooms);
+            stats.report(properties.getMessageRate(), System.out, Path.of(properties.getOutputDirectory(), runId));
+        } finally {
+            sessions.values().forEach(StompSession::disconnect);
+        }
+    }
+
+    private List<Customer> createCustomers(ExecutorService executor) throws Exception {
+        List<Callable<Customer>> tasks = new ArrayList<>();
+        for (int i = 0; i < properties.getCustomers(); i++) {
+            String username = "lg_" + runId + "_" + i;
+            tasks.add(() -> {
+                Long id = gatewayClient.createCustomer(username, properties.getPassword(), "Load " + username, username + "@loadgen.local");
+                return new Customer(id, username, gatewayClient.login(username, properties.getPassword()));
+            });
+        }
+        List<Customer> customers = runBounded(executor, tasks);
+        System.out.println("--- Đã tạo và đăng nhập " + customers.size() + " customer.");
+        return customers;
+    }
+
+    private List<Room> createRooms(ExecutorService executor, List<Customer> customers) throws Exception {
+        RoomSizeDistribution distribution = new RoomSizeDistribution(properties.getRoomSizes());
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        List<Callable<Room>> tasks = new ArrayList<>();
+        for (int r = 0; r < properties.getRooms(); r++) {
+            int size = Math.min(distribution.sample(random), customers.size());
+            List<Customer> shuffled = new ArrayList<>(customers);
+            Collections.shuffle(shuffled, random);
+            List<Customer> members = List.copyOf(shuffled.subList(0, size));
+            String roomName = "loadgen-" + runId + "-" + r;
+
+            tasks.add(() -> {
+                Customer creator = members.get(0);
+                List<Long> targets = new ArrayList<>();
+                for (Customer member : members.subList(1, members.size())) {
+                    targets.add(member.id());
+                }
+                return new Room(gatewayClient.createRoom(creator.jwt(), roomName, targets), members);
+            });
+        }
+        List<Room> rooms = runBounded(executor, tasks);
+        System.out.println("--- Đã tạo " + rooms.size() + " room.");
+        return rooms;
+    }
+
+    /**
+     * WebSocket chỉ cho subscribe khi chat-query-service đã biết thành viên của room, nên chờ projection bắt kịp.
+     */
+    private void awaitProjection(List<Room> rooms) throws Exception {
+        Map<Customer, List<Long>> roomsByCreator = new LinkedHashMap<>();
+        for (Room room : rooms) {
+            roomsByCreator.computeIfAbsent(room.members().get(0), c -> new ArrayList<>()).add(room.roomId());
+        }
+
+        long deadline = System.nanoTime() + properties.getProjectionTimeout().toNanos();
+        for (Map.Entry<Customer, List<Long>> entry : roomsByCreator.entrySet()) {
+            while (!gatewayClient.listRoomIds(entry.getKey().jwt()).containsAll(entry.getValue())) {
+                if (System.nanoTime() > deadline) {
+                    throw new IllegalStateException("Rooms were not projected to chat-query-service within " + properties.getProjectionTimeout());
+                }
+                Thread.sleep(500);
+            }
+        }
+        System.out.println("--- Room đã được chiếu sang chat-query-service.");
+    }
+
+    private void openSessions(ExecutorService executor, List<Customer> customers, List<Room> rooms) throws Exception {
+        Map<Long, List<Long>> roomIdsByCustomer = new LinkedHashMap<>();
+        for (Room room : rooms) {
+            for (Customer member : room.members()) {
+                roomIdsByCustomer.computeIfAbsent(member.id(), id -> new ArrayList<>()).add(room.roomId());
+            }
+        }
+
+        HttpClient webSocketClient = HttpClient.newHttpClient();
+        List<Callable<StompSession>> tasks = new ArrayList<>();
+        for (Customer customer : customers.subList(0, Math.min(properties.getSessions(), customers.size()))) {
+            tasks.add(() -> {
+                StompSession session = StompSession.connect(webSocketClient, properties.getWebsocketUrl(), customer.id(), customer.jwt(),
+                    this::onMessage, properties.getRequestTimeout());
+                for (Long roomId : roomIdsByCustomer.getOrDefault(customer.id(), List.of())) {
+                    session.subscribe("/topic/message/roomId/" + roomId);
+                }
+                return session;
+            });
+        }
+        for (StompSession session : runBounded(executor, tasks)) {
+            sessions.put(session.getCustomerId(), session);
+        }
+        System.out.println("--- Đã mở " + sessions.size() + " phiên STOMP.");
+    }
+
+    private void generateLoad(ExecutorService executor, ScheduledExecutorService scheduler, List<Room> rooms) throws Exception {
+        double perTick = properties.getMessageRate() * TICK_MILLIS / 1000d;
+        double[] credit = { 0 };
+
+        long start = System.nanoTime();
+        measureFromNanos = start + properties.getWarmup().toNanos();
+        long end = measureFromNanos + properties.getDuration().toNanos();
+
+        Future<?> ticker = scheduler.scheduleAtFixedRate(() -> {
+            long intendedNanos = System.nanoTime();
+            credit[0] += perTick;
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (credit[0] >= 1) {
+                credit[0] -= 1;
+                Room room = rooms.get(random.nextInt(rooms.size()));
+                Customer sender = room.members().get(random.nextInt(room.members().size()));
+                boolean typing = random.nextDouble() < properties.getTypingRatio();
+                executor.execute(() -> sendMessage(room, sender, intendedNanos, typing));
+            }
+        }, 0, TICK_MILLIS, TimeUnit.MILLISECONDS);
+
+        System.out.println("--- Warmup " + properties.getWarmup() + ", đo trong " + properties.getDuration() + " với " + properties.getMessageRate() + " msg/s.");
+        Thread.sleep(TimeUnit.NANOSECONDS.toMillis(measureFromNanos - start));
+        stats.reset();
+        Thread.sleep(TimeUnit.NANOSECONDS.toMillis(end - measureFromNanos));
+        ticker.cancel(false);
+
+        // Chờ các request còn dở và các tin nhắn đang trên đường tới WebSocket
+        Thread.sleep(properties.getRequestTimeout().toMillis());
+    }
+
+    private void sendMessage(Room room, Customer sender, long intendedNanos, boolean typing) {
+        StompSession session = typing ? sessions.get(sender.id()) : null;
+        if (session != null && session.isOpen()) {
+            session.send("/app/typing", "{\"roomId\":" + room.roomId() + ",\"isTyping\":1}");
+            stats.recordTyping();
+        }
+
+        String content = CONTENT_PREFIX + runId + "|" + intendedNanos + "|" + padding;
+        try {
+            int status = gatewayClient.sendMessage(sender.jwt(), room.roomId(), content);
+            if (intendedNanos >= measureFromNanos) {
+                stats.recordCommand(System.nanoTime() - intendedNanos, status);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            if (intendedNanos >= measureFromNanos) {
+                stats.recordTransportError(System.nanoTime() - intendedNanos);
+            }
+        } finally {
+            if (session != null && session.isOpen()) {
+                session.send("/app/typing", "{\"roomId\":" + room.roomId() + ",\"isTyping\":0}");
+            }
+        }
+    }
+
+    private void onMessage(String destination, String body) {
+        long receivedNanos = System.nanoTime();
+        try {
+            JsonNode event = objectMapper.readTree(body);
+            String content = event.path("content").asText("");
+            String prefix = CONTENT_PREFIX + runId + "|";
+            if (!content.startsWith(prefix)) {
+                return;
+            }
+            int end = content.indexOf('|', prefix.length());
+            long intendedNanos = Long.parseLong(content.substring(prefix.length(), end));
+            if (intendedNanos >= measureFromNanos) {
+                stats.recordDelivery(receivedNanos - intendedNanos);
+            }
+        } catch (Exception e) {
+            System.err.println("Could not parse message from " + destination + ": " + e.getMessage());
+        }
+    }
+
+    private void sendHeartbeats() {
+        for (StompSession session : sessions.values()) {
+            if (session.isOpen()) {
+                try {
+                    session.send("/app/extendOnline", "");
+                    stats.recordHeartbeat();
+                } catch (Exception e) {
+                    System.err.println("Heartbeat failed for customer " + session.getCustomerId() + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private <T> List<T> runBounded(ExecutorService executor, List<Callable<T>> tasks) throws Exception {
+        Semaphore permits = new Semaphore(properties.getSetupConcurrency());
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        for (Callable<T> task : tasks) {
+            futures.add(executor.submit(() -> {
+                permits.acquire();
+                try {
+                    return task.call();
+                } finally {
+                    permits.release();
+                }
+            }));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        for (Future<T> future : futures) {
+            results.add(future.get());
+        }
+        return results;
+    }
+}
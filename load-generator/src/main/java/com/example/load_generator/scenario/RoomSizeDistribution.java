@@ -0,0 +1,47 @@
+package com.example.load_generator.scenario;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Phân bố rời rạc kích thước room, cấu hình dạng {@code size:weight,...} (ví dụ {@code 2:70,5:20,50:10}).
+ */
+public class RoomSizeDistribution {
+
+    private final List<Integer> sizes = new ArrayList<>();
+    private final List<Double> cumulativeWeights = new ArrayList<>();
+    private final double totalWeight;
+
+    public RoomSizeDistribution(String spec) {
+        double total = 0;
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid room size entry '" + entry + "', expected size:weight");
+            }
+            int size = Integer.parseInt(parts[0].trim());
+            double weight = Double.parseDouble(parts[1].trim());
+            if (size < 2 || weight <= 0) {
+                throw new IllegalArgumentException("Room size must be >= 2 and weight > 0: '" + entry + "'");
+            }
+            total += weight;
+            sizes.add(size);
+            cumulativeWeights.add(total);
+        }
+        if (sizes.isEmpty()) {
+            throw new IllegalArgumentException("Room size distribution is empty");
+        }
+        this.totalWeight = total;
+    }
+
+    public int sample(RandomGenerator random) {
+        double point = random.nextDouble(totalWeight);
+        for (int i = 0; i < sizes.size(); i++) {
+            if (point < cumulativeWeights.get(i)) {
+                return sizes.get(i);
+            }
+        }
+        return sizes.get(sizes.size() - 1);
+    }
+}
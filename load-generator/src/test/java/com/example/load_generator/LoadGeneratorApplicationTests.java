@@ -0,0 +1,13 @@
+package com.example.load_generator;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(properties = "loadgen.autostart=false")
+class LoadGeneratorApplicationTests {
+
+	@Test
+	void contextLoads() {
+	}
+
+}
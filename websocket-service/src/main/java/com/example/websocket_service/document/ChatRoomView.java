@@ -16,6 +16,7 @@ public class ChatRoomView {
     private String roomName;
     private List<Long> participantIds;
     private Map<Long, Boolean> unreadStatus;
+    private Map<Long, Long> unreadCounts;
     private LastMessageInfo lastMessage;
     private Long createdBy;
     private Instant createdAt;
@@ -4,7 +4,9 @@ import com.example.websocket_service.document.ChatRoomView;
 import com.example.websocket_service.kafka.dto.MessageSentEvent;
 import com.example.websocket_service.kafka.dto.ReadMarkerEvent;
 import com.example.websocket_service.kafka.dto.ReadStatusUpdateEvent;
+import com.example.websocket_service.tracing.MessageLatencyTracer;
 
+import java.time.Instant;
 import java.util.List;
 
 import org.springframework.kafka.annotation.KafkaListener;
@@ -14,9 +16,11 @@ import org.springframework.stereotype.Service;
 @Service
 public class KafkaConsumerService {
     private final SimpMessagingTemplate messagingTemplate;
+    private final MessageLatencyTracer latencyTracer;
 
-    public KafkaConsumerService(SimpMessagingTemplate messagingTemplate) {
+    public KafkaConsumerService(SimpMessagingTemplate messagingTemplate, MessageLatencyTracer latencyTracer) {
         this.messagingTemplate = messagingTemplate;
+        this.latencyTracer = latencyTracer;
     }
 
     @KafkaListener(
@@ -58,7 +62,14 @@ public class KafkaConsumerService {
             System.out.println("--- Đã nhận sự kiện MessageSentEvent từ Kafka cho Room ID: " + event.getRoomId());
             String destination = "/topic/message/roomId/" + event.getRoomId();
             
+            Instant receivedAt = Instant.now();
             messagingTemplate.convertAndSend(destination, event);
+            Instant pushedAt = Instant.now();
+
+            latencyTracer.stage("push", event, pushedAt);
+            latencyTracer.hop("kafka_consume", event.getPublishedAt(), receivedAt);
+            latencyTracer.hop("push", receivedAt, pushedAt);
+            latencyTracer.logIfSlow("push", event, receivedAt, pushedAt);
 
             System.out.println("--- Đã push tin nhắn mới (Message ID: " + event.getMessageId() + ") tới WebSocket destination: " + destination);
 
@@ -0,0 +1,154 @@
+package com.example.websocket_service.kafka.codec;
+
+import com.example.websocket_service.document.ChatRoomView;
+import com.example.websocket_service.kafka.dto.MessageSentEvent;
+import com.example.websocket_service.kafka.dto.ReadMarkerEvent;
+import com.example.websocket_service.kafka.dto.ReadStatusUpdateEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Codec nhị phân có version cho các domain event trên Kafka, dùng chung wire format giữa chat-command,
+ * chat-query và websocket (mỗi service giữ bản sao của codec cho các DTO của mình).
+ * websocket chỉ tiêu thụ sự kiện nên bản sao này chỉ có phần decode.
+ *
+ * <pre>
+ * [MAGIC 0xCE][VERSION][TYPE][record]
+ * record = varint bitmask các field khác null, theo sau là các field đó theo thứ tự khai báo
+ * </pre>
+ *
+ * Field mới chỉ được thêm vào cuối record cấp ngoài cùng (bit mới) và kèm tăng VERSION;
+ * reader cũ bỏ qua phần đuôi mà nó không biết. Payload không bắt đầu bằng MAGIC được coi là JSON cũ.
+ *
+ * <p>Lịch sử version: 1 - bản đầu; 2 - RoomCreatedEvent thêm chunkIndex/chunkCount;
+ * 3 - MessageSentEvent thêm roomSeq; 4 - MessageSentEvent thêm persistedAt/publishedAt;
+ * 5 - ReadStatusUpdateEvent thêm unreadCount, room updated thêm unreadCounts.
+ */
+public final class EventCodec {
+
+    public static final byte MAGIC = (byte) 0xCE;
+    public static final byte VERSION = 5;
+
+    static final byte TYPE_MESSAGE_SENT = 1;
+    static final byte TYPE_ROOM_CREATED = 2;
+    static final byte TYPE_READ_MARKER = 3;
+    static final byte TYPE_READ_STATUS_UPDATE = 4;
+    static final byte TYPE_ROOM_UPDATED = 5;
+
+    private static final int HEADER_LENGTH = 3;
+
+    private EventCodec() {
+    }
+
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length >= HEADER_LENGTH && data[0] == MAGIC;
+    }
+
+    public static Object decode(byte[] data) {
+        if (!isBinary(data)) {
+            throw new IllegalArgumentException("Payload is not a binary-encoded event");
+        }
+        BinaryEventReader in = new BinaryEventReader(data, HEADER_LENGTH);
+        byte type = data[2];
+        return switch (type) {
+            case TYPE_MESSAGE_SENT -> readMessageSent(in);
+            case TYPE_READ_MARKER -> readReadMarker(in);
+            case TYPE_READ_STATUS_UPDATE -> readReadStatusUpdate(in);
+            case TYPE_ROOM_UPDATED -> readRoomUpdated(in);
+            default -> throw new IllegalArgumentException("Unknown event type tag " + type + " (version " + data[1] + ")");
+        };
+    }
+
+    // --- MessageSentEvent ---
+
+    private static MessageSentEvent readMessageSent(BinaryEventReader in) {
+        int mask = in.readVarInt();
+        MessageSentEvent e = new MessageSentEvent();
+        if (has(mask, 0)) e.setMessageId(in.readVarLong());
+        if (has(mask, 1)) e.setRoomId(in.readVarLong());
+        if (has(mask, 2)) e.setSenderId(in.readVarLong());
+        if (has(mask, 3)) e.setSenderFullName(in.readString());
+        if (has(mask, 4)) e.setContent(in.readString());
+        if (has(mask, 5)) e.setSentAt(in.readInstant());
+        if (has(mask, 6)) e.setRoomSeq(in.readVarLong());
+        if (has(mask, 7)) e.setPersistedAt(in.readInstant());
+        if (has(mask, 8)) e.setPublishedAt(in.readInstant());
+        return e;
+    }
+
+    // --- ReadMarkerEvent ---
+
+    private static ReadMarkerEvent readReadMarker(BinaryEventReader in) {
+        int mask = in.readVarInt();
+        ReadMarkerEvent e = new ReadMarkerEvent();
+        if (has(mask, 0)) e.setRoomId(in.readVarLong());
+        if (has(mask, 1)) e.setCustomerId(in.readVarLong());
+        if (has(mask, 2)) e.setLastReadMessageId(in.readVarLong());
+        return e;
+    }
+
+    // --- ReadStatusUpdateEvent ---
+
+    private static ReadStatusUpdateEvent readReadStatusUpdate(BinaryEventReader in) {
+        int mask = in.readVarInt();
+        ReadStatusUpdateEvent e = new ReadStatusUpdateEvent();
+        if (has(mask, 0)) e.setRoomId(in.readVarLong());
+        if (has(mask, 1)) e.setCustomerId(in.readVarLong());
+        if (has(mask, 2)) e.setIsUnread(in.readByte() != 0);
+        if (has(mask, 3)) e.setUnreadCount(in.readVarLong());
+        return e;
+    }
+
+    // --- Room updated (ChatRoomView) ---
+
+    private static ChatRoomView readRoomUpdated(BinaryEventReader in) {
+        int mask = in.readVarInt();
+        ChatRoomView e = new ChatRoomView();
+        if (has(mask, 0)) e.setRoomId(in.readVarLong());
+        if (has(mask, 1)) e.setRoomName(in.readString());
+        if (has(mask, 2)) {
+            int count = in.readVarInt();
+            List<Long> participantIds = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                participantIds.add(in.readVarLong());
+            }
+            e.setParticipantIds(participantIds);
+        }
+        if (has(mask, 3)) {
+            int count = in.readVarInt();
+            Map<Long, Boolean> unreadStatus = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                unreadStatus.put(in.readVarLong(), in.readByte() != 0);
+            }
+            e.setUnreadStatus(unreadStatus);
+        }
+        if (has(mask, 4)) {
+            int messageMask = in.readVarInt();
+            ChatRoomView.LastMessageInfo m = new ChatRoomView.LastMessageInfo();
+            if (has(messageMask, 0)) m.setMessageId(in.readVarLong());
+            if (has(messageMask, 1)) m.setSenderId(in.readVarLong());
+            if (has(messageMask, 2)) m.setContent(in.readString());
+            if (has(messageMask, 3)) m.setSentAt(in.readInstant());
+            e.setLastMessage(m);
+        }
+        if (has(mask, 5)) e.setCreatedBy(in.readVarLong());
+        if (has(mask, 6)) e.setCreatedAt(in.readInstant());
+        if (has(mask, 7)) e.setUpdatedAt(in.readInstant());
+        if (has(mask, 8)) {
+            int count = in.readVarInt();
+            Map<Long, Long> unreadCounts = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                unreadCounts.put(in.readVarLong(), in.readVarLong());
+            }
+            e.setUnreadCounts(unreadCounts);
+        }
+        return e;
+    }
+
+    private static boolean has(int mask, int index) {
+        return (mask & (1 << index)) != 0;
+    }
+}
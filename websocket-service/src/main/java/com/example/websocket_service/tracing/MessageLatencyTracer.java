@@ -0,0 +1,105 @@
+package com.example.websocket_service.tracing;
+
+import com.example.websocket_service.kafka.dto.MessageSentEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Đo độ trễ của tin nhắn qua từng chặng, dựa trên các mốc thời gian đi kèm MessageSentEvent.
+ * Ở websocket-service: chặng push (SimpMessagingTemplate.convertAndSend xong).
+ * <ul>
+ *   <li>{@code chat.message.latency{stage}}: từ lúc nhận tin nhắn (sentAt) tới khi hết chặng (db_commit, kafka_ack,
+ *   projection, push).</li>
+ *   <li>{@code chat.message.hop{hop}}: thời gian của riêng một chặng (relay_wait, kafka_ack, kafka_consume, projection, push).</li>
+ * </ul>
+ * Mốc thời gian đến từ nhiều service nên chịu ảnh hưởng của lệch đồng hồ giữa các máy; giá trị âm được tính là 0.
+ */
+@Component
+public class MessageLatencyTracer {
+
+    private static final double[] PERCENTILES = { 0.5, 0.95, 0.99 };
+
+    private final MeterRegistry meterRegistry;
+    private final Duration slowThreshold;
+    private final Map<String, Timer> stageTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> hopTimers = new ConcurrentHashMap<>();
+
+    public MessageLatencyTracer(MeterRegistry meterRegistry,
+                                @Value("${chat.tracing.slow-message-threshold}") Duration slowThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.slowThreshold = slowThreshold;
+    }
+
+    public void stage(String stage, MessageSentEvent event, Instant completedAt) {
+        if (event.getSentAt() == null) {
+            return;
+        }
+        stageTimers.computeIfAbsent(stage, s -> timer("chat.message.latency", "stage", s,
+                "Latency from message acceptance to the end of a pipeline stage"))
+            .record(nonNegative(event.getSentAt(), completedAt));
+    }
+
+    public void hop(String hop, Instant from, Instant to) {
+        if (from == null || to == null) {
+            return;
+        }
+        hopTimers.computeIfAbsent(hop, h -> timer("chat.message.hop", "hop", h,
+                "Time spent in a single hop of the message pipeline"))
+            .record(nonNegative(from, to));
+    }
+
+    /**
+     * Ghi log phân rã theo chặng nếu tổng độ trễ tới {@code completedAt} vượt ngưỡng.
+     *
+     * @param receivedAt lúc service hiện tại nhận sự kiện từ Kafka, {@code null} nếu không áp dụng
+     */
+    public void logIfSlow(String stage, MessageSentEvent event, Instant receivedAt, Instant completedAt) {
+        if (event.getSentAt() == null || nonNegative(event.getSentAt(), completedAt).compareTo(slowThreshold) <= 0) {
+            return;
+        }
+
+        StringBuilder breakdown = new StringBuilder();
+        Instant previous = event.getSentAt();
+        String previousName = "sent";
+        String[] names = { "persisted", "published", "received", stage };
+        Instant[] marks = { event.getPersistedAt(), event.getPublishedAt(), receivedAt, completedAt };
+        for (int i = 0; i < marks.length; i++) {
+            if (marks[i] == null) {
+                continue;
+            }
+            if (!breakdown.isEmpty()) {
+                breakdown.append(", ");
+            }
+            breakdown.append(previousName).append("->").append(names[i]).append('=')
+                .append(nonNegative(previous, marks[i]).toMillis()).append("ms");
+            previous = marks[i];
+            previousName = names[i];
+        }
+
+        System.err.println("Slow message " + event.getMessageId() + " (Room ID " + event.getRoomId() + ") at stage " + stage
+            + ": total=" + nonNegative(event.getSentAt(), completedAt).toMillis() + "ms [" + breakdown + "]");
+    }
+
+    private Timer timer(String name, String tagKey, String tagValue, String description) {
+        return Timer.builder(name)
+            .description(description)
+            .tag(tagKey, tagValue)
+            .publishPercentiles(PERCENTILES)
+            .publishPercentileHistogram()
+            .minimumExpectedValue(Duration.ofMillis(1))
+            .maximumExpectedValue(Duration.ofSeconds(30))
+            .register(meterRegistry);
+    }
+
+    private static Duration nonNegative(Instant from, Instant to) {
+        Duration duration = Duration.between(from, to);
+        return duration.isNegative() ? Duration.ZERO : duration;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.websocket_service.benchmark;
+
+import com.example.websocket_service.interceptor.AuthChannelInterceptor;
+import com.example.websocket_service.jwt.JwtDecoder;
+import com.example.websocket_service.service.WebSocketService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đo AuthChannelInterceptor.preSend cho frame CONNECT (xác minh JWT) và SUBSCRIBE vào topic của room.
+ * Kiểm tra thành viên room (HTTP tới chat-query-service) được thay bằng stub luôn trả true, nên kết quả SUBSCRIBE
+ * là chi phí phía websocket-service, chưa gồm round-trip mạng.
+ * System.out/System.err bị chuyển vào null stream trong lúc đo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthChannelInterceptorBenchmark {
+
+    private static final MessageChannel CHANNEL = (message, timeout) -> true;
+
+    private AuthChannelInterceptor interceptor;
+    private Message<byte[]> connectFrame;
+    private Message<byte[]> subscribeFrame;
+    private PrintStream originalOut;
+    private PrintStream originalErr;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkKeys keys = new BenchmarkKeys();
+
+        interceptor = new AuthChannelInterceptor();
+        ReflectionTestUtils.setField(interceptor, "jwtDecoder", new JwtDecoder(keys.publicKeyLoader()));
+        ReflectionTestUtils.setField(interceptor, "webSocketService", new WebSocketService(WebClient.builder()) {
+            @Override
+            public boolean isParticipantOfRoom(Long roomId, Long customerId) {
+                return true;
+            }
+        });
+
+        StompHeaderAccessor connect = StompHeaderAccessor.create(StompCommand.CONNECT);
+        connect.setNativeHeader("jwt_token", keys.token("42"));
+        connect.setLeaveMutable(true);
+        connectFrame = MessageBuilder.createMessage(new byte[0], connect.getMessageHeaders());
+
+        StompHeaderAccessor subscribe = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        subscribe.setDestination("/topic/message/roomId/987654321");
+        subscribe.setSubscriptionId("sub-1");
+        subscribe.setUser(new UsernamePasswordAuthenticationToken("42", null, AuthorityUtils.createAuthorityList("ROLE_USER")));
+        subscribe.setLeaveMutable(true);
+        subscribeFrame = MessageBuilder.createMessage(new byte[0], subscribe.getMessageHeaders());
+
+        originalOut = System.out;
+        originalErr = System.err;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(originalOut);
+        System.setErr(originalErr);
+    }
+
+    @Benchmark
+    public Message<?> connect() {
+        return interceptor.preSend(connectFrame, CHANNEL);
+    }
+
+    @Benchmark
+    public Message<?> subscribe() {
+        return interceptor.preSend(subscribeFrame, CHANNEL);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.websocket_service.benchmark;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Cặp khóa RSA sinh khi setup benchmark (thay cho keys/public_key.pem do key.py tạo, không có trong repo)
+ * và JWT mẫu có claim customerId như token do auth-service cấp.
+ */
+final class BenchmarkKeys {
+
+    private final KeyPair keyPair;
+
+    BenchmarkKeys() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        this.keyPair = generator.generateKeyPair();
+    }
+
+    /**
+     * ResourceLoader trả về public key dạng PEM cho mọi đường dẫn.
+     */
+    ResourceLoader publicKeyLoader() {
+        String pem = "-----BEGIN PUBLIC KEY-----\n"
+            + Base64.getMimeEncoder().encodeToString(keyPair.getPublic().getEncoded())
+            + "\n-----END PUBLIC KEY-----\n";
+        byte[] bytes = pem.getBytes(StandardCharsets.US_ASCII);
+        return new DefaultResourceLoader() {
+            @Override
+            public Resource getResource(String location) {
+                return new ByteArrayResource(bytes);
+            }
+        };
+    }
+
+    String token(String customerId) {
+        return Jwts.builder()
+            .setSubject("user" + customerId)
+            .claim("customerId", customerId)
+            .claim("fullName", "Nguyễn Văn A")
+            .setIssuedAt(new Date())
+            .setExpiration(new Date(System.currentTimeMillis() + 86_400_000L))
+            .signWith(keyPair.getPrivate(), SignatureAlgorithm.RS256)
+            .compact();
+    }
+}
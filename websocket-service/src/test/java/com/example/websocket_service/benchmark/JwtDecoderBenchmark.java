@@ -0,0 +1,35 @@
+package com.example.websocket_service.benchmark;
+
+import com.example.websocket_service.jwt.JwtDecoder;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đo JwtDecoder.parseToken (xác minh chữ ký RS256 + parse claims) — chạy cho mọi frame CONNECT.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtDecoderBenchmark {
+
+    private JwtDecoder jwtDecoder;
+    private String token;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkKeys keys = new BenchmarkKeys();
+        jwtDecoder = new JwtDecoder(keys.publicKeyLoader());
+        token = keys.token("42");
+    }
+
+    @Benchmark
+    public Jws<Claims> parseToken() {
+        return jwtDecoder.parseToken(token);
+    }
+}
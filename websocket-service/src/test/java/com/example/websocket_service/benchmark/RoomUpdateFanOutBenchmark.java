@@ -0,0 +1,104 @@
+package com.example.websocket_service.benchmark;
+
+import com.example.websocket_service.document.ChatRoomView;
+import com.example.websocket_service.kafka.KafkaConsumerService;
+import com.example.websocket_service.tracing.MessageLatencyTracer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Đo KafkaConsumerService.handleRoomUpdate: mỗi participant nhận một convertAndSendToUser, tức một lần
+ * chuyển ChatRoomView sang JSON. Channel đích chỉ đếm message (không đo broker/phiên WebSocket).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoomUpdateFanOutBenchmark {
+
+    @Param({"2", "50", "500"})
+    public int participants;
+
+    private KafkaConsumerService consumerService;
+    private ChatRoomView roomView;
+    private long sent;
+    private PrintStream originalOut;
+
+    @Setup
+    public void setUp() {
+        MessageChannel brokerChannel = (message, timeout) -> {
+            sent++;
+            return true;
+        };
+        MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
+        converter.setObjectMapper(Jackson2ObjectMapperBuilder.json().build());
+        SimpMessagingTemplate messagingTemplate = new SimpMessagingTemplate(brokerChannel);
+        messagingTemplate.setMessageConverter(converter);
+
+        consumerService = new KafkaConsumerService(messagingTemplate, new MessageLatencyTracer(new SimpleMeterRegistry(), Duration.ofSeconds(1)));
+        roomView = roomView(participants);
+
+        // handleRoomUpdate nuốt exception; kiểm tra trước để không vô tình đo nhánh lỗi
+        consumerService.handleRoomUpdate(roomView);
+        if (sent != participants) {
+            throw new IllegalStateException("Expected " + participants + " messages but " + sent + " were sent");
+        }
+
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(originalOut);
+    }
+
+    @Benchmark
+    public long handleRoomUpdate() {
+        consumerService.handleRoomUpdate(roomView);
+        return sent;
+    }
+
+    private static ChatRoomView roomView(int participants) {
+        ChatRoomView view = new ChatRoomView();
+        view.setRoomId(987_654_321L);
+        view.setRoomName("Benchmark room");
+        List<Long> participantIds = new ArrayList<>();
+        Map<Long, Boolean> unreadStatus = new HashMap<>();
+        Map<Long, Long> unreadCounts = new HashMap<>();
+        for (long id = 1; id <= participants; id++) {
+            participantIds.add(id);
+            unreadStatus.put(id, id % 2 == 0);
+            unreadCounts.put(id, id % 2 == 0 ? id % 7 + 1 : 0L);
+        }
+        view.setParticipantIds(participantIds);
+        view.setUnreadStatus(unreadStatus);
+        view.setUnreadCounts(unreadCounts);
+        ChatRoomView.LastMessageInfo lastMessage = new ChatRoomView.LastMessageInfo();
+        lastMessage.setMessageId(123_456_789_012L);
+        lastMessage.setSenderId(42L);
+        lastMessage.setContent("Xin chào, đây là một tin nhắn thử nghiệm có độ dài bình thường.");
+        lastMessage.setSentAt(Instant.now());
+        view.setLastMessage(lastMessage);
+        view.setCreatedBy(1L);
+        view.setCreatedAt(Instant.now());
+        view.setUpdatedAt(Instant.now());
+        return view;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.websocket_service.kafka.codec;
+
+import com.example.websocket_service.document.ChatRoomView;
+import com.example.websocket_service.kafka.dto.MessageSentEvent;
+import com.example.websocket_service.kafka.dto.ReadMarkerEvent;
+import com.example.websocket_service.kafka.dto.ReadStatusUpdateEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Wire format cố định của codec. Các payload dưới đây giống hệt trong EventCodecGoldenTest của chat-command và
+ * chat-query: đổi một trong ba bản sao codec mà không đổi hai bản còn lại sẽ làm test của service đó fail.
+ * v4 là payload chat-command ghi, v5 là payload chat-query ghi; websocket chỉ decode.
+ */
+class EventCodecGoldenTest {
+
+    static final String MESSAGE_SENT_V4 = "ce0401ff01f2fdeee0909238540e0b4e677579e1bb856e20416e0978696e206368c3a06f80c49fd50cc0a9d33a0680c49fd50c8084af5f";
+    static final String MESSAGE_SENT_V5 = "ce0501ff01f2fdeee0909238540e0b4e677579e1bb856e20416e0978696e206368c3a06f80c49fd50cc0a9d33a0680c49fd50c8084af5f";
+    static final String ROOM_CREATED_V4 = "ce04027f54045465616d0e80c49fd50c0002070e02416e80c49fd50c0001100001";
+    static final String READ_MARKER_V4 = "ce0403075410f2fdeee0909238";
+    static final String READ_STATUS_UPDATE_V5 = "ce05040f5410010a";
+    static final String ROOM_UPDATED_V5 = "ce0505ff0354045465616d020e100110010ff2fdeee09092380e0978696e206368c3a06f80c49fd50cc0a9d33a0e80c49fd50c0082c49fd50c00011004";
+
+    private static final Instant T = Instant.ofEpochSecond(1_700_000_000L);
+
+    @Test
+    void decodesMessageSentFromEitherProducerVersion() {
+        assertThat(decode(MESSAGE_SENT_V4)).usingRecursiveComparison().isEqualTo(messageSent());
+        assertThat(decode(MESSAGE_SENT_V5)).usingRecursiveComparison().isEqualTo(messageSent());
+    }
+
+    @Test
+    void decodesReadMarker() {
+        ReadMarkerEvent expected = new ReadMarkerEvent();
+        expected.setRoomId(42L);
+        expected.setCustomerId(8L);
+        expected.setLastReadMessageId(123_456_789_012_345L);
+
+        assertThat(decode(READ_MARKER_V4)).usingRecursiveComparison().isEqualTo(expected);
+    }
+
+    @Test
+    void decodesReadStatusUpdate() {
+        ReadStatusUpdateEvent expected = new ReadStatusUpdateEvent();
+        expected.setRoomId(42L);
+        expected.setCustomerId(8L);
+        expected.setIsUnread(true);
+        expected.setUnreadCount(5L);
+
+        assertThat(decode(READ_STATUS_UPDATE_V5)).usingRecursiveComparison().isEqualTo(expected);
+    }
+
+    @Test
+    void decodesRoomUpdated() {
+        ChatRoomView.LastMessageInfo lastMessage = new ChatRoomView.LastMessageInfo();
+        lastMessage.setMessageId(123_456_789_012_345L);
+        lastMessage.setSenderId(7L);
+        lastMessage.setContent("xin chào");
+        lastMessage.setSentAt(T.plusMillis(123));
+
+        ChatRoomView expected = new ChatRoomView();
+        expected.setRoomId(42L);
+        expected.setRoomName("Team");
+        expected.setParticipantIds(List.of(7L, 8L));
+        expected.setUnreadStatus(Map.of(8L, true));
+        expected.setUnreadCounts(Map.of(8L, 2L));
+        expected.setLastMessage(lastMessage);
+        expected.setCreatedBy(7L);
+        expected.setCreatedAt(T);
+        expected.setUpdatedAt(T.plusSeconds(1));
+
+        assertThat(decode(ROOM_UPDATED_V5)).usingRecursiveComparison().isEqualTo(expected);
+    }
+
+    @Test
+    void rejectsEventTypesWebsocketDoesNotConsume() {
+        assertThatThrownBy(() -> decode(ROOM_CREATED_V4)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static MessageSentEvent messageSent() {
+        MessageSentEvent event = new MessageSentEvent();
+        event.setMessageId(123_456_789_012_345L);
+        event.setRoomId(42L);
+        event.setSenderId(7L);
+        event.setSenderFullName("Nguyễn An");
+        event.setContent("xin chào");
+        event.setSentAt(T.plusMillis(123));
+        event.setRoomSeq(3L);
+        event.setPersistedAt(T.plusMillis(200));
+        return event;
+    }
+
+    private static Object decode(String payload) {
+        return EventCodec.decode(HexFormat.of().parseHex(payload));
+    }
+}